@@ -24,6 +24,7 @@
 
 package com.ray3k.skincomposer;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.utils.BaseDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
@@ -31,7 +32,8 @@ import com.badlogic.gdx.utils.Array;
 
 /**
  * A drawable class that plays a sequence of images with the specified frame delay.
- * Update must be called regularly in order for the animation to occur.
+ * Update must be called regularly in order for the animation to occur. Drawing
+ * an animation requests another frame when continuous rendering is off.
  * 
  * @author Raymond Buckley
  */
@@ -109,6 +111,10 @@ public class AnimatedDrawable extends BaseDrawable {
         if (drawables.size > 0) {
             drawables.get(index).draw(batch, x, y, width, height);
         }
+        
+        if (drawables.size > 1) {
+            Gdx.graphics.requestRendering();
+        }
     }
     
     private void recalcSize() {
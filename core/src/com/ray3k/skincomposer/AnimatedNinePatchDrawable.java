@@ -24,13 +24,16 @@
 
 package com.ray3k.skincomposer;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.NinePatch;
 import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
 import com.badlogic.gdx.utils.Array;
 
 /**
  * A Drawable that renders an array of NinePatchDrawables in sequence. Ensure
- * that update() is called once per Drawable in the render() method.
+ * that update() is called once per Drawable in the render() method. Drawing an
+ * animation requests another frame when continuous rendering is off.
  * 
  * @author Raymond Buckley
  */
@@ -91,4 +94,13 @@ public class AnimatedNinePatchDrawable extends NinePatchDrawable {
             super.setPatch(patches.get(index));
         }
     }
+
+    @Override
+    public void draw(Batch batch, float x, float y, float width, float height) {
+        super.draw(batch, x, y, width, height);
+        
+        if (patches.size > 1) {
+            Gdx.graphics.requestRendering();
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Timer;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.ray3k.skincomposer.data.ProjectData;
+
+/**
+ * Periodically saves projects with unsaved changes. A snapshot of the project
+ * is taken on the GL thread and then serialized and written on a background
+ * thread, so an autosave never holds up a frame. Projects that have never been
+ * saved or that still have resources waiting to be moved next to the save file
+ * are skipped until the user saves manually.
+ */
+public class AutosaveService implements Disposable {
+    private final Main main;
+    private final AsyncExecutor executor;
+    private final Timer timer;
+    private Timer.Task task;
+    private boolean writing;
+
+    public AutosaveService(Main main) {
+        this.main = main;
+        executor = new AsyncExecutor(1);
+        timer = new Timer();
+    }
+    
+    /**
+     * Restarts the autosave timer.
+     * @param minutes Time between autosaves. 0 disables autosave.
+     */
+    public void setInterval(int minutes) {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        
+        if (minutes > 0) {
+            task = new Timer.Task() {
+                @Override
+                public void run() {
+                    autosave();
+                }
+            };
+            float seconds = minutes * 60.0f;
+            timer.scheduleTask(task, seconds, seconds);
+        }
+    }
+    
+    /**
+     * Starts writing the project in the background if it has unsaved changes.
+     * Must be called on the GL thread.
+     */
+    public void autosave() {
+        ProjectData projectData = main.getProjectData();
+        FileHandle saveFile = projectData.getSaveFile();
+        
+        if (writing || projectData.areChangesSaved() || saveFile == null
+                || saveFile.type() == Files.FileType.Local
+                || projectData.hasPendingResourceMoves()) {
+            return;
+        }
+        
+        ProjectData snapshot = projectData.snapshot();
+        writing = true;
+        executor.submit(() -> {
+            boolean written = false;
+            try {
+                written = projectData.writeSnapshot(snapshot);
+            } catch (Exception e) {
+                Gdx.app.error(getClass().getName(), "Error while autosaving project file", e);
+            }
+            
+            boolean saved = written;
+            Gdx.app.postRunnable(() -> {
+                writing = false;
+                //only mark as saved if nothing changed while writing, the undo
+                //history has to match the saved project like after a manual save
+                if (saved && projectData.getRevision() == snapshot.getRevision() && saveFile.equals(projectData.getSaveFile())) {
+                    main.getUndoableManager().saveHistory(saveFile);
+                    projectData.setChangesSaved(true);
+                }
+            });
+            Gdx.graphics.requestRendering();
+            return null;
+        });
+    }
+
+    /**
+     * Stops the timer and waits for a pending autosave to finish writing.
+     */
+    @Override
+    public void dispose() {
+        timer.clear();
+        timer.stop();
+        executor.dispose();
+    }
+}
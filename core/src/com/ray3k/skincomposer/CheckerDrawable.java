@@ -23,17 +23,33 @@
  ******************************************************************************/
 package com.ray3k.skincomposer;
 
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.utils.BaseDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 
 /**
  * Draws a checkerboard pattern with the provided drawables, tinted with the
  * provided colors. Ensure that the widget using this drawable is set to clip.
+ * If created with a skin and two colors instead, the pattern is drawn as a
+ * single quad from a repeating 2x2 texture regardless of its size. The texture
+ * is added to the skin and disposed with it. If created with a region and two
+ * colors, the first color is drawn as a single quad under the whole area and
+ * only the cells of the second color are drawn on top of it, which avoids
+ * switching textures at the cost of one quad per cell.
  * 
  * @author Raymond
  */
 public class CheckerDrawable extends BaseDrawable {
+    private Texture texture;
+    private TextureRegion region;
+    private Color color1;
+    private Color color2;
+    private final Color tempColor = new Color();
     private Drawable drawable1;
     private Drawable drawable2;
     private float w;
@@ -56,6 +72,56 @@ public class CheckerDrawable extends BaseDrawable {
         this.cellHeight = cellHeight;
         calcDimensions();
     }
+    
+    /**
+     * Creates a checker that draws as one quad. The 2x2 texture for each pair
+     * of colors is shared through the skin and disposed with it.
+     * @param skin
+     * @param color1
+     * @param color2
+     * @param cellWidth
+     * @param cellHeight 
+     */
+    public CheckerDrawable(Skin skin, Color color1, Color color2, float cellWidth, float cellHeight) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        
+        String key = "checker-" + color1.toString() + "-" + color2.toString();
+        texture = skin.optional(key, Texture.class);
+        if (texture == null) {
+            Pixmap pixmap = new Pixmap(2, 2, Pixmap.Format.RGBA8888);
+            pixmap.setColor(color1);
+            pixmap.drawPixel(0, 0);
+            pixmap.drawPixel(1, 1);
+            pixmap.setColor(color2);
+            pixmap.drawPixel(1, 0);
+            pixmap.drawPixel(0, 1);
+            texture = new Texture(pixmap);
+            texture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+            texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            pixmap.dispose();
+            skin.add(key, texture);
+        }
+        calcDimensions();
+    }
+    
+    /**
+     * Creates a checker that tints region with the two colors. Use a white
+     * region from the skin's atlas so drawing doesn't switch textures.
+     * @param region a white region
+     * @param color1
+     * @param color2
+     * @param cellWidth
+     * @param cellHeight 
+     */
+    public CheckerDrawable(TextureRegion region, Color color1, Color color2, float cellWidth, float cellHeight) {
+        this.region = region;
+        this.color1 = new Color(color1);
+        this.color2 = new Color(color2);
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        calcDimensions();
+    }
 
     public Drawable getDrawable1() {
         return drawable1;
@@ -94,6 +160,12 @@ public class CheckerDrawable extends BaseDrawable {
     }
     
     private void calcDimensions() {
+        if (texture != null || region != null) {
+            w = cellWidth;
+            h = cellHeight;
+            return;
+        }
+        
         w = Math.max(drawable1.getMinWidth(), drawable2.getMinWidth());
         w = Math.max(w, cellWidth);
         h = Math.max(drawable1.getMinHeight(), drawable2.getMinHeight());
@@ -102,6 +174,15 @@ public class CheckerDrawable extends BaseDrawable {
 
     @Override
     public void draw(Batch batch, float x, float y, float width, float height) {
+        if (texture != null) {
+            //one texture repeat spans two cells in each direction
+            batch.draw(texture, x, y, width, height, 0.0f, 0.0f, width / (2.0f * w), height / (2.0f * h));
+            return;
+        } else if (region != null) {
+            drawRegion(batch, x, y, width, height);
+            return;
+        }
+        
         boolean changeY = false;
         for (float y1 = y; y1 < y + height; y1 += h) {
             boolean changeX = changeY;
@@ -117,4 +198,20 @@ public class CheckerDrawable extends BaseDrawable {
             changeY = !changeY;
         }
     }
+    
+    private void drawRegion(Batch batch, float x, float y, float width, float height) {
+        tempColor.set(batch.getColor());
+        batch.setColor(color1.r * tempColor.r, color1.g * tempColor.g, color1.b * tempColor.b, color1.a * tempColor.a);
+        batch.draw(region, x, y, width, height);
+        
+        batch.setColor(color2.r * tempColor.r, color2.g * tempColor.g, color2.b * tempColor.b, color2.a * tempColor.a);
+        boolean changeY = false;
+        for (float y1 = y; y1 < y + height; y1 += h) {
+            for (float x1 = changeY ? x : x + w; x1 < x + width; x1 += 2.0f * w) {
+                batch.draw(region, x1, y1, Math.min(w, x + width - x1), Math.min(h, y + height - y1));
+            }
+            changeY = !changeY;
+        }
+        batch.setColor(tempColor);
+    }
 }
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.skincomposer.utils.ImageStats;
+import com.ray3k.skincomposer.utils.Utils;
+
+/**
+ * Keeps the information that the fonts dialog needs to lay out a font row
+ * without creating a BitmapFont: the page files, the size of the preview text
+ * and the brightness of the first page. Entries are kept for the lifetime of
+ * the application and are refreshed when the font file is modified.
+ * BitmapFontData is not shared because creating a BitmapFont from atlas
+ * regions modifies its glyphs.
+ * 
+ * @author Raymond Buckley
+ */
+public class FontMetadataCache {
+    private final ObjectMap<String, FontMetadata> cache;
+
+    public FontMetadataCache() {
+        cache = new ObjectMap<>();
+    }
+    
+    /**
+     * Parses the font file if it isn't cached yet.
+     * @param file a .fnt file
+     * @param previewText the text to measure
+     * @return 
+     */
+    public FontMetadata get(FileHandle file, String previewText) {
+        FontMetadata metadata = cache.get(file.path());
+        if (metadata == null || metadata.lastModified != file.lastModified() || !metadata.previewText.equals(previewText)) {
+            metadata = new FontMetadata(file, previewText);
+            cache.put(file.path(), metadata);
+        }
+        return metadata;
+    }
+    
+    public void clear() {
+        cache.clear();
+    }
+    
+    public static class FontMetadata {
+        private final long lastModified;
+        private final FileHandle[] pageFiles;
+        private final String previewText;
+        private final float previewWidth;
+        private final float previewHeight;
+        private float brightness;
+
+        private FontMetadata(FileHandle file, String previewText) {
+            lastModified = file.lastModified();
+            this.previewText = previewText;
+            brightness = -1.0f;
+            
+            BitmapFontData data = new BitmapFontData(file, false);
+            pageFiles = new FileHandle[data.imagePaths.length];
+            for (int i = 0; i < pageFiles.length; i++) {
+                FileHandle pageFile = new FileHandle(data.imagePaths[i]);
+                if (!pageFile.exists()) {
+                    pageFile = data.fontFile.sibling(data.fontFile.nameWithoutExtension() + ".png");
+                }
+                pageFiles[i] = pageFile;
+            }
+            
+            float width = 0.0f;
+            for (int i = 0; i < previewText.length(); i++) {
+                Glyph glyph = data.getGlyph(previewText.charAt(i));
+                if (glyph != null) {
+                    width += glyph.xadvance;
+                }
+            }
+            previewWidth = width;
+            previewHeight = data.capHeight - data.descent;
+            
+            if (pageFiles.length > 0) {
+                ImageStats.prefetch(pageFiles[0]);
+            }
+        }
+
+        /**
+         * @return The image files of the pages with missing files replaced
+         * by a png next to the font file.
+         */
+        public FileHandle[] getPageFiles() {
+            return pageFiles;
+        }
+
+        public float getPreviewWidth() {
+            return previewWidth;
+        }
+
+        public float getPreviewHeight() {
+            return previewHeight;
+        }
+        
+        /**
+         * @return The brightness of the average edge color of the first page
+         * or -1 if the font has no pages.
+         */
+        public float getBrightness() {
+            if (brightness < 0 && pageFiles.length > 0) {
+                brightness = Utils.brightness(Utils.averageEdgeColor(pageFiles[0]));
+            }
+            return brightness;
+        }
+    }
+}
@@ -23,15 +23,18 @@
  ******************************************************************************/
 package com.ray3k.skincomposer;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.utils.BaseDrawable;
 
 /**
- * Drawable that renders a gradient defined by four corner colors.
+ * Drawable that renders a gradient defined by four corner colors. The gradient
+ * is drawn as a single quad with colored vertices straight into the Batch. Use
+ * a white region from the same texture as the rest of the UI so that it
+ * doesn't cause a flush.
  * 
  * MIT License
 
@@ -58,7 +61,9 @@ SOFTWARE.
  * @author Raymond Buckley
  */
 public class GradientDrawable extends BaseDrawable {
-    private static ShapeRenderer g;
+    private static TextureRegion defaultRegion;
+    private final TextureRegion region;
+    private final float[] vertices;
     private Color col1, col2, col3, col4;
     private float borderLeft, borderTop, borderRight, borderBottom;
 
@@ -70,7 +75,20 @@ public class GradientDrawable extends BaseDrawable {
      * @param col4 top left color
      */
     public GradientDrawable(Color col1, Color col2, Color col3, Color col4) {
-        if (g == null) g = new ShapeRenderer();
+        this(getDefaultRegion(), col1, col2, col3, col4);
+    }
+    
+    /**
+     * 
+     * @param region a solid white region
+     * @param col1 bottom left color
+     * @param col2 bottom right color
+     * @param col3 top right color
+     * @param col4 top left color
+     */
+    public GradientDrawable(TextureRegion region, Color col1, Color col2, Color col3, Color col4) {
+        this.region = region;
+        vertices = new float[20];
         
         this.col1 = new Color();
         this.col2 = new Color();
@@ -160,26 +178,40 @@ public class GradientDrawable extends BaseDrawable {
     
     @Override
     public void draw(Batch batch, float x, float y, float width, float height) {
-        float[] alphas = {col1.a, col2.a, col3.a, col4.a};
-        col1.a = batch.getColor().a * col1.a;
-        col2.a = batch.getColor().a * col2.a;
-        col3.a = batch.getColor().a * col3.a;
-        col4.a = batch.getColor().a * col4.a;
+        Color tint = batch.getColor();
+        float x1 = x + borderLeft;
+        float y1 = y + borderBottom;
+        float x2 = x + width - borderRight;
+        float y2 = y + height - borderTop;
+        //sample the center of the region to avoid bleeding from neighbors
+        float u = (region.getU() + region.getU2()) / 2.0f;
+        float v = (region.getV() + region.getV2()) / 2.0f;
         
-        g.begin(ShapeRenderer.ShapeType.Filled);
-        g.setProjectionMatrix(batch.getProjectionMatrix());
-        g.setTransformMatrix(batch.getTransformMatrix());
-        batch.end();
-        Gdx.gl.glEnable(GL20.GL_BLEND);
-        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
-        g.rect(x + borderLeft, y + borderBottom, width - borderLeft - borderRight, height - borderBottom - borderTop, col1, col2, col3, col4);
-        g.end();
-        Gdx.gl.glDisable(GL20.GL_BLEND);
-        batch.begin();
+        setVertex(0, x1, y1, col1, tint, u, v);
+        setVertex(1, x1, y2, col4, tint, u, v);
+        setVertex(2, x2, y2, col3, tint, u, v);
+        setVertex(3, x2, y1, col2, tint, u, v);
         
-        col1.a = alphas[0];
-        col2.a = alphas[1];
-        col3.a = alphas[2];
-        col4.a = alphas[3];
+        batch.draw(region.getTexture(), vertices, 0, vertices.length);
+    }
+    
+    private void setVertex(int index, float x, float y, Color color, Color tint, float u, float v) {
+        int offset = index * 5;
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = Color.toFloatBits(color.r * tint.r, color.g * tint.g, color.b * tint.b, color.a * tint.a);
+        vertices[offset + 3] = u;
+        vertices[offset + 4] = v;
+    }
+    
+    private static TextureRegion getDefaultRegion() {
+        if (defaultRegion == null) {
+            Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            pixmap.setColor(Color.WHITE);
+            pixmap.fill();
+            defaultRegion = new TextureRegion(new Texture(pixmap));
+            pixmap.dispose();
+        }
+        return defaultRegion;
     }
 }
@@ -65,10 +65,13 @@ import com.badlogic.gdx.scenes.scene2d.ui.Tree;
 import com.badlogic.gdx.scenes.scene2d.ui.Tree.TreeStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.Window;
 import com.badlogic.gdx.scenes.scene2d.ui.Window.WindowStyle;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.ray3k.skincomposer.data.AtlasData;
+import com.ray3k.skincomposer.data.EditJournal;
 import com.ray3k.skincomposer.data.JsonData;
 import com.ray3k.skincomposer.data.ProjectData;
+import com.ray3k.skincomposer.data.ResourceStore;
 import com.ray3k.skincomposer.utils.Utils;
 
 public class Main extends ApplicationAdapter {
@@ -91,12 +94,20 @@ public class Main extends ApplicationAdapter {
     private DesktopWorker desktopWorker;
     private AnimatedDrawable loadingAnimation;
     private UndoableManager undoableManager;
+    private AutosaveService autosaveService;
+    private EditJournal editJournal;
+    private ResourceStore resourceStore;
     private ProjectData projectData;
     private RootTable rootTable;
     private IbeamListener ibeamListener;
     private MainListener mainListener;
     private HandListener handListener;
     private TooltipManager tooltipManager;
+    private RenderMetrics renderMetrics;
+    private FontMetadataCache fontMetadataCache;
+    private FileHandle snapshotProject;
+    private FileHandle snapshotFolder;
+    private boolean snapshotFailed;
     
     @Override
     public void create() {
@@ -106,7 +117,32 @@ public class Main extends ApplicationAdapter {
         
         initDefaults();
         
+        Gdx.graphics.setContinuousRendering(!projectData.isIdleRendering());
+        
         populate();
+        
+        if (snapshotProject != null) {
+            renderSnapshots();
+        } else {
+            editJournal.checkForRecovery();
+        }
+    }
+    
+    /**
+     * Loads the snapshot project, writes PNG snapshots of all its styles and
+     * exits the application. Styles that could not be rendered are logged and
+     * mark the job as failed.
+     */
+    private void renderSnapshots() {
+        projectData.load(snapshotProject);
+        PreviewRenderer previewRenderer = new PreviewRenderer(this);
+        Array<FileHandle> files = previewRenderer.render(snapshotFolder);
+        Gdx.app.log(getClass().getName(), "Wrote " + files.size + " preview snapshots to " + snapshotFolder.path());
+        if (previewRenderer.getFailures().size > 0) {
+            snapshotFailed = true;
+            Gdx.app.error(getClass().getName(), "Failed to render " + previewRenderer.getFailures().size + " preview snapshots: " + previewRenderer.getFailures().toString(", "));
+        }
+        Gdx.app.exit();
     }
     
     private void initDefaults() {
@@ -122,13 +158,17 @@ public class Main extends ApplicationAdapter {
         
         ibeamListener = new IbeamListener();
         
+        editJournal = new EditJournal(this);
+        
         projectData = new ProjectData();
         projectData.setMain(this);
         projectData.randomizeId();
-        projectData.setMaxUndos(30);
+        projectData.setUndoMemory(ProjectData.DEFAULT_UNDO_MEMORY);
         
         dialogFactory = new DialogFactory(this);
         undoableManager = new UndoableManager(this);
+        autosaveService = new AutosaveService(this);
+        autosaveService.setInterval(projectData.getAutosaveInterval());
         
         desktopWorker.attachLogListener();
         desktopWorker.sizeWindowToFit(800, 800, 50, Gdx.graphics);
@@ -149,6 +189,8 @@ public class Main extends ApplicationAdapter {
         loadingAnimation.addDrawable(skin.getDrawable("loading_7"));
         
         projectData.getAtlasData().clearTempData();
+        resourceStore = new ResourceStore(Gdx.files.local("store/"));
+        resourceStore.pruneLater();
         handListener = new HandListener();
         
         tooltipManager = new TooltipManager();
@@ -158,6 +200,9 @@ public class Main extends ApplicationAdapter {
         tooltipManager.subsequentTime = 0.0f;
         tooltipManager.hideAll();
         tooltipManager.instant();
+        
+        renderMetrics = new RenderMetrics();
+        fontMetadataCache = new FontMetadataCache();
     }
 
     private void populate() {
@@ -175,12 +220,16 @@ public class Main extends ApplicationAdapter {
     
     @Override
     public void render() {
+        renderMetrics.beginFrame();
         Gdx.gl.glClearColor(1.0f, 1.0f, 1.0f, 1.0f);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
         loadingAnimation.update(Gdx.graphics.getDeltaTime());
         stage.act(Gdx.graphics.getDeltaTime());
+        renderMetrics.actFinished();
         stage.draw();
+        renderMetrics.endFrame(stage);
+        renderMetrics.drawOverlay(stage, skin.getFont("font"), skin.getDrawable("white"));
     }
 
     @Override
@@ -191,8 +240,16 @@ public class Main extends ApplicationAdapter {
 
     @Override
     public void dispose() {
+        autosaveService.dispose();
+        resourceStore.dispose();
+        editJournal.dispose();
+        undoableManager.closeHistory();
         stage.dispose();
         skin.dispose();
+        
+        if (Gdx.app.getApplicationLogger() instanceof TextFileApplicationLogger) {
+            ((TextFileApplicationLogger) Gdx.app.getApplicationLogger()).dispose();
+        }
     }
 
     public DesktopWorker getDesktopWorker() {
@@ -202,11 +259,38 @@ public class Main extends ApplicationAdapter {
     public void setDesktopWorker(DesktopWorker textureWorker) {
         this.desktopWorker = textureWorker;
     }
+    
+    /**
+     * Starts the application in snapshot mode. Instead of showing the editor,
+     * the project is loaded and its previews are written to the folder.
+     * Must be called before the application is created.
+     * @param project the project file to load
+     * @param folder the output folder for the PNG files
+     */
+    public void setSnapshotJob(FileHandle project, FileHandle folder) {
+        snapshotProject = project;
+        snapshotFolder = folder;
+    }
+    
+    /**
+     * @return true if the snapshot job could not render every style.
+     */
+    public boolean isSnapshotFailed() {
+        return snapshotFailed;
+    }
 
     public Stage getStage() {
         return stage;
     }
 
+    public RenderMetrics getRenderMetrics() {
+        return renderMetrics;
+    }
+    
+    public FontMetadataCache getFontMetadataCache() {
+        return fontMetadataCache;
+    }
+    
     public AnimatedDrawable getLoadingAnimation() {
         return loadingAnimation;
     }
@@ -219,6 +303,18 @@ public class Main extends ApplicationAdapter {
         return undoableManager;
     }
 
+    public AutosaveService getAutosaveService() {
+        return autosaveService;
+    }
+
+    public EditJournal getEditJournal() {
+        return editJournal;
+    }
+
+    public ResourceStore getResourceStore() {
+        return resourceStore;
+    }
+
     public ProjectData getProjectData() {
         return projectData;
     }
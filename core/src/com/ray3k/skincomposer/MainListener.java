@@ -132,6 +132,9 @@ public class MainListener extends RootTableListener {
             case DRAWABLES:
                 dialogFactory.showDrawables();
                 break;
+            case GALLERY:
+                dialogFactory.showStyleGallery();
+                break;
             case ABOUT:
                 dialogFactory.showAbout();
                 break;
@@ -485,6 +488,7 @@ public class MainListener extends RootTableListener {
             dialogFactory.showDialogFonts(styleProperty);
         } else if (styleProperty.type == Float.TYPE) {
             main.getUndoableManager().addUndoable(new UndoableManager.DoubleUndoable(main, styleProperty, ((Spinner) styleActor).getValue()), false);
+            root.refreshPreviewStyle();
         } else if (styleProperty.type == ScrollPaneStyle.class) {
             main.getUndoableManager().addUndoable(new UndoableManager.SelectBoxUndoable(root, styleProperty, (SelectBox) styleActor), true);
         } else if (styleProperty.type == LabelStyle.class) {
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.skincomposer.data.FontData;
+import java.util.Iterator;
+
+/**
+ * Keeps one BitmapFont per project font for the preview so that refreshing
+ * the preview does not reparse font files or upload textures. Font pages are
+ * taken from the project atlas when they are part of it. Fonts are rebuilt
+ * when their name or file changes and all fonts are released when the atlas
+ * is replaced.
+ * 
+ * @author Raymond Buckley
+ */
+public class PreviewFontCache implements Disposable {
+    private final ObjectMap<String, CachedFont> fonts;
+    private TextureAtlas atlas;
+
+    public PreviewFontCache() {
+        fonts = new ObjectMap<>();
+    }
+    
+    /**
+     * Sets the atlas that font pages are looked up in. Releases all fonts
+     * because they may refer to regions of the previous atlas.
+     * @param atlas 
+     */
+    public void setAtlas(TextureAtlas atlas) {
+        this.atlas = atlas;
+        clear();
+    }
+    
+    /**
+     * 
+     * @param fontData
+     * @return the font for fontData, loading it if it is not cached yet.
+     */
+    public BitmapFont get(FontData fontData) {
+        CachedFont cachedFont = fonts.get(fontData.getName());
+        if (cachedFont != null && !cachedFont.file.equals(fontData.file)) {
+            cachedFont.font.dispose();
+            cachedFont = null;
+        }
+        
+        if (cachedFont == null) {
+            cachedFont = new CachedFont();
+            cachedFont.file = fontData.file;
+            cachedFont.font = load(fontData.file);
+            fonts.put(fontData.getName(), cachedFont);
+        }
+        
+        return cachedFont.font;
+    }
+    
+    /**
+     * Releases fonts that are no longer part of the project, such as deleted
+     * or renamed fonts.
+     * @param fontDatas the current fonts of the project
+     */
+    public void retain(Array<FontData> fontDatas) {
+        Iterator<ObjectMap.Entry<String, CachedFont>> iter = fonts.entries().iterator();
+        while (iter.hasNext()) {
+            ObjectMap.Entry<String, CachedFont> entry = iter.next();
+            boolean found = false;
+            for (FontData fontData : fontDatas) {
+                if (fontData.getName().equals(entry.key) && fontData.file.equals(entry.value.file)) {
+                    found = true;
+                    break;
+                }
+            }
+            
+            if (!found) {
+                entry.value.font.dispose();
+                iter.remove();
+            }
+        }
+    }
+    
+    public void clear() {
+        for (CachedFont cachedFont : fonts.values()) {
+            cachedFont.font.dispose();
+        }
+        fonts.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+    
+    private BitmapFont load(FileHandle file) {
+        BitmapFontData data = new BitmapFontData(file, false);
+        
+        if (atlas != null) {
+            Array<TextureRegion> regions = new Array<>();
+            for (String path : data.imagePaths) {
+                TextureRegion region = atlas.findRegion(new FileHandle(path).nameWithoutExtension());
+                if (region == null) {
+                    regions = null;
+                    break;
+                }
+                regions.add(region);
+            }
+            
+            if (regions != null) {
+                return new BitmapFont(data, regions, true);
+            }
+        }
+        
+        //pages are not in the atlas, load them as separate textures
+        return new BitmapFont(data, (TextureRegion) null, true);
+    }
+    
+    private static class CachedFont {
+        private FileHandle file;
+        private BitmapFont font;
+    }
+}
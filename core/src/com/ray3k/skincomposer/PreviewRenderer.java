@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+import com.ray3k.skincomposer.data.StyleData;
+
+/**
+ * Renders the preview widget of every style into a FrameBuffer and writes the
+ * result as PNG files, one folder per widget class. Widgets are created with
+ * the same code as the preview in RootTable, using the default preview
+ * properties of each class so the snapshots don't depend on the state of the
+ * editor. Rendering requires a GL context and has to run on the
+ * render thread, but the window may be hidden. Encoding and writing the PNG
+ * files is done in parallel on background threads.
+ * 
+ * @author Raymond Buckley
+ */
+public class PreviewRenderer {
+    public static final int MIN_SIZE = 16;
+    public static final int MAX_SIZE = 2048;
+    private final Main main;
+    private final Color background;
+    private float padding;
+    private final Array<String> failures;
+
+    public PreviewRenderer(Main main) {
+        this.main = main;
+        failures = new Array<>();
+        background = new Color(Color.CLEAR);
+        padding = 5.0f;
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public void setBackground(Color color) {
+        background.set(color);
+    }
+
+    public float getPadding() {
+        return padding;
+    }
+
+    public void setPadding(float padding) {
+        this.padding = padding;
+    }
+    
+    /**
+     * Returns the styles that could not be rendered or written by the last
+     * call to render(FileHandle).
+     * @return The styles as "Class/style" paths.
+     */
+    public Array<String> getFailures() {
+        return failures;
+    }
+    
+    /**
+     * Renders every style of every basic class. Styles with missing mandatory
+     * fields or without any set fields are skipped. Styles that fail to render
+     * or write are listed in {@link #getFailures()}.
+     * @param folder the output folder, created if necessary
+     * @return the files that were written successfully
+     */
+    public Array<FileHandle> render(FileHandle folder) {
+        Array<FileHandle> files = new Array<>();
+        failures.clear();
+        
+        if (main.getAtlasData().isAtlasPending()) {
+            main.getAtlasData().awaitAtlas();
+            main.getRootTable().produceAtlas();
+        }
+        main.getRootTable().refreshPreviewResources();
+        
+        folder.mkdirs();
+        AsyncExecutor executor = new AsyncExecutor(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        Array<AsyncResult<FileHandle>> results = new Array<>();
+        Array<String> resultNames = new Array<>();
+        Stage stage = new Stage(new ScalingViewport(Scaling.none, MIN_SIZE, MIN_SIZE));
+        try {
+            for (Class clazz : Main.BASIC_CLASSES) {
+                for (StyleData styleData : main.getJsonData().getClassStyleMap().get(clazz)) {
+                    if (!styleData.hasMandatoryFields() || styleData.hasAllNullFields()) {
+                        continue;
+                    }
+                    
+                    String name = clazz.getSimpleName() + "/" + styleData.name;
+                    FileHandle file = folder.child(name + ".png");
+                    try {
+                        Pixmap pixmap = render(stage, clazz, styleData);
+                        if (pixmap != null) {
+                            results.add(executor.submit(() -> {
+                                try {
+                                    PixmapIO.writePNG(file, pixmap);
+                                } finally {
+                                    pixmap.dispose();
+                                }
+                                return file;
+                            }));
+                            resultNames.add(name);
+                        } else {
+                            Gdx.app.error(getClass().getName(), "No preview widget for " + name);
+                            failures.add(name);
+                        }
+                    } catch (Exception e) {
+                        Gdx.app.error(getClass().getName(), "Error while rendering preview snapshot for " + name, e);
+                        failures.add(name);
+                    }
+                }
+            }
+            
+            for (int i = 0; i < results.size; i++) {
+                try {
+                    files.add(results.get(i).get());
+                } catch (GdxRuntimeException e) {
+                    Gdx.app.error(getClass().getName(), "Error while writing preview snapshot for " + resultNames.get(i), e);
+                    failures.add(resultNames.get(i));
+                }
+            }
+        } finally {
+            stage.dispose();
+            executor.dispose();
+        }
+        return files;
+    }
+    
+    /**
+     * Renders a single style into a new Pixmap. Must be called on the render
+     * thread.
+     * @param stage an offscreen stage used for layout, drawing, and clipping
+     * @param clazz one of Main.BASIC_CLASSES
+     * @param styleData
+     * @return the pixmap, which has to be disposed by the caller, or null if
+     * the class is not supported
+     */
+    public Pixmap render(Stage stage, Class clazz, StyleData styleData) {
+        Table table = new Table();
+        table.pad(padding);
+        Actor widget = main.getRootTable().createPreviewWidget(clazz, styleData, table, RootTable.getDefaultPreviewProperties(clazz, styleData));
+        if (widget == null) {
+            return null;
+        }
+        table.add(widget);
+        
+        int width = MathUtils.clamp(MathUtils.ceil(table.getPrefWidth()), MIN_SIZE, MAX_SIZE);
+        int height = MathUtils.clamp(MathUtils.ceil(table.getPrefHeight()), MIN_SIZE, MAX_SIZE);
+        table.setSize(width, height);
+        
+        stage.clear();
+        stage.addActor(table);
+        stage.getViewport().setWorldSize(width, height);
+        stage.getViewport().update(width, height, true);
+        table.validate();
+        
+        FrameBuffer frameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+        byte[] pixels;
+        try {
+            frameBuffer.begin();
+            Gdx.gl.glClearColor(background.r, background.g, background.b, background.a);
+            Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+            
+            //draw without applying the viewport, FrameBuffer.begin() already
+            //set it to the size of the buffer
+            Batch batch = stage.getBatch();
+            batch.setProjectionMatrix(stage.getCamera().combined);
+            batch.begin();
+            stage.getRoot().draw(batch, 1.0f);
+            batch.end();
+            
+            pixels = ScreenUtils.getFrameBufferPixels(0, 0, width, height, true);
+        } finally {
+            frameBuffer.end();
+            frameBuffer.dispose();
+            stage.clear();
+        }
+        
+        Pixmap pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        BufferUtils.copy(pixels, 0, pixmap.getPixels(), pixels.length);
+        return pixmap;
+    }
+}
@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import java.util.Arrays;
+
+/**
+ * Collects render statistics for a rolling window of frames and can draw them
+ * as an overlay on top of the stage. Frame times are the CPU time spent in
+ * Main.render(), so they stay meaningful when continuous rendering is off.
+ * GLProfiler is only enabled while metrics are collected.
+ * 
+ * @author Raymond Buckley
+ */
+public class RenderMetrics {
+    public static final int WINDOW_SIZE = 600;
+    private static final float OVERLAY_REFRESH = .5f;
+    private final float[] frameTimes;
+    private final float[] actTimes;
+    private final float[] drawTimes;
+    private final float[] deltaTimes;
+    private final int[] renderCalls;
+    private final int[] maxSprites;
+    private final int[] textureBindings;
+    private final int[] drawCalls;
+    private final int[] actorCounts;
+    private final float[] sorted;
+    private int index;
+    private int count;
+    private boolean enabled;
+    private boolean overlayVisible;
+    private boolean enabledByOverlay;
+    private long frameStart;
+    private long actEnd;
+    private float overlayTime;
+    private final StringBuilder overlayText;
+
+    public RenderMetrics() {
+        frameTimes = new float[WINDOW_SIZE];
+        actTimes = new float[WINDOW_SIZE];
+        drawTimes = new float[WINDOW_SIZE];
+        deltaTimes = new float[WINDOW_SIZE];
+        renderCalls = new int[WINDOW_SIZE];
+        maxSprites = new int[WINDOW_SIZE];
+        textureBindings = new int[WINDOW_SIZE];
+        drawCalls = new int[WINDOW_SIZE];
+        actorCounts = new int[WINDOW_SIZE];
+        sorted = new float[WINDOW_SIZE];
+        overlayText = new StringBuilder();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops collecting metrics. Stopping also hides the overlay.
+     * @param enabled 
+     */
+    public void setEnabled(boolean enabled) {
+        enabledByOverlay = false;
+        if (enabled && !this.enabled) {
+            index = 0;
+            count = 0;
+            overlayTime = OVERLAY_REFRESH;
+            GLProfiler.enable();
+            GLProfiler.reset();
+        } else if (!enabled && this.enabled) {
+            GLProfiler.disable();
+            overlayVisible = false;
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Shows or hides the overlay. Showing it starts collecting metrics and
+     * hiding it stops collecting again, unless collection was started with
+     * {@link #setEnabled(boolean)}.
+     * @param overlayVisible 
+     */
+    public void setOverlayVisible(boolean overlayVisible) {
+        if (overlayVisible && !enabled) {
+            setEnabled(true);
+            enabledByOverlay = true;
+        } else if (!overlayVisible && enabledByOverlay) {
+            setEnabled(false);
+        }
+        this.overlayVisible = overlayVisible;
+        Gdx.graphics.requestRendering();
+    }
+    
+    public void beginFrame() {
+        if (enabled) {
+            frameStart = System.nanoTime();
+            GLProfiler.reset();
+        }
+    }
+    
+    public void actFinished() {
+        if (enabled) {
+            actEnd = System.nanoTime();
+        }
+    }
+    
+    /**
+     * Records the metrics of the frame. Call after the stage is drawn.
+     * @param stage 
+     */
+    public void endFrame(Stage stage) {
+        if (!enabled) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        frameTimes[index] = (now - frameStart) / 1000000.0f;
+        actTimes[index] = (actEnd - frameStart) / 1000000.0f;
+        drawTimes[index] = (now - actEnd) / 1000000.0f;
+        deltaTimes[index] = Gdx.graphics.getDeltaTime() * 1000.0f;
+        
+        Batch batch = stage.getBatch();
+        if (batch instanceof SpriteBatch) {
+            SpriteBatch spriteBatch = (SpriteBatch) batch;
+            renderCalls[index] = spriteBatch.renderCalls;
+            maxSprites[index] = spriteBatch.maxSpritesInBatch;
+            spriteBatch.maxSpritesInBatch = 0;
+        }
+        textureBindings[index] = GLProfiler.textureBindings;
+        drawCalls[index] = GLProfiler.drawCalls;
+        actorCounts[index] = countActors(stage.getRoot());
+        
+        index = (index + 1) % WINDOW_SIZE;
+        count = Math.min(count + 1, WINDOW_SIZE);
+    }
+    
+    /**
+     * Draws the overlay in the top left corner of the stage if it is visible.
+     * Call after endFrame() so the overlay isn't part of the measurements.
+     * @param stage
+     * @param font
+     * @param background drawn behind the text, may be null
+     */
+    public void drawOverlay(Stage stage, BitmapFont font, Drawable background) {
+        if (!overlayVisible || count == 0) {
+            return;
+        }
+        
+        overlayTime += Gdx.graphics.getDeltaTime();
+        if (overlayTime >= OVERLAY_REFRESH) {
+            overlayTime = 0.0f;
+            int last = getLastIndex();
+            overlayText.setLength(0);
+            overlayText.append("frame ms p50 ").append(format(getFramePercentile(.5f)))
+                    .append(" p95 ").append(format(getFramePercentile(.95f)))
+                    .append(" p99 ").append(format(getFramePercentile(.99f)))
+                    .append(" max ").append(format(getFramePercentile(1.0f))).append('\n');
+            overlayText.append("act ms ").append(format(getAverage(actTimes)))
+                    .append(" draw ms ").append(format(getAverage(drawTimes))).append('\n');
+            overlayText.append("render calls ").append(renderCalls[last])
+                    .append(" max sprites ").append(maxSprites[last]).append('\n');
+            overlayText.append("texture binds ").append(textureBindings[last])
+                    .append(" draw calls ").append(drawCalls[last]).append('\n');
+            overlayText.append("actors ").append(actorCounts[last])
+                    .append(" frames ").append(count);
+        }
+        
+        Batch batch = stage.getBatch();
+        batch.begin();
+        float x = 5.0f;
+        float y = stage.getHeight() - 5.0f;
+        if (background != null) {
+            batch.setColor(0.0f, 0.0f, 0.0f, .7f);
+            background.draw(batch, 0.0f, y - 6.0f * font.getLineHeight(), 320.0f, 6.0f * font.getLineHeight() + 5.0f);
+            batch.setColor(Color.WHITE);
+        }
+        font.setColor(Color.WHITE);
+        font.draw(batch, overlayText, x, y);
+        batch.end();
+    }
+    
+    /**
+     * 
+     * @param percentile a value from 0 to 1
+     * @return the frame time in milliseconds at the given percentile of the
+     * rolling window
+     */
+    public float getFramePercentile(float percentile) {
+        if (count == 0) {
+            return 0.0f;
+        }
+        System.arraycopy(frameTimes, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int i = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, i))];
+    }
+    
+    /**
+     * 
+     * @return the average time spent in stage.act() in milliseconds
+     */
+    public float getAverageActTime() {
+        return getAverage(actTimes);
+    }
+    
+    /**
+     * 
+     * @return the average time spent in stage.draw() in milliseconds
+     */
+    public float getAverageDrawTime() {
+        return getAverage(drawTimes);
+    }
+    
+    public int getRenderCalls() {
+        return count == 0 ? 0 : renderCalls[getLastIndex()];
+    }
+    
+    public int getMaxSpritesInBatch() {
+        return count == 0 ? 0 : maxSprites[getLastIndex()];
+    }
+    
+    public int getTextureBindings() {
+        return count == 0 ? 0 : textureBindings[getLastIndex()];
+    }
+    
+    public int getActorCount() {
+        return count == 0 ? 0 : actorCounts[getLastIndex()];
+    }
+    
+    /**
+     * 
+     * @return the number of frames in the rolling window
+     */
+    public int getFrameCount() {
+        return count;
+    }
+    
+    /**
+     * Writes the rolling window to a CSV file, oldest frame first.
+     * @param file 
+     */
+    public void writeCsv(FileHandle file) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("frame,frameMs,actMs,drawMs,deltaMs,renderCalls,maxSpritesInBatch,textureBindings,drawCalls,actors\n");
+        int start = (index - count + WINDOW_SIZE) % WINDOW_SIZE;
+        for (int i = 0; i < count; i++) {
+            int j = (start + i) % WINDOW_SIZE;
+            builder.append(i).append(',')
+                    .append(frameTimes[j]).append(',')
+                    .append(actTimes[j]).append(',')
+                    .append(drawTimes[j]).append(',')
+                    .append(deltaTimes[j]).append(',')
+                    .append(renderCalls[j]).append(',')
+                    .append(maxSprites[j]).append(',')
+                    .append(textureBindings[j]).append(',')
+                    .append(drawCalls[j]).append(',')
+                    .append(actorCounts[j]).append('\n');
+        }
+        file.writeString(builder.toString(), false, "UTF-8");
+    }
+    
+    private int getLastIndex() {
+        return (index - 1 + WINDOW_SIZE) % WINDOW_SIZE;
+    }
+    
+    private float getAverage(float[] values) {
+        if (count == 0) {
+            return 0.0f;
+        }
+        float total = 0.0f;
+        for (int i = 0; i < count; i++) {
+            total += values[i];
+        }
+        return total / count;
+    }
+    
+    private static String format(float value) {
+        return Float.toString(Math.round(value * 100.0f) / 100.0f);
+    }
+    
+    private static int countActors(Group group) {
+        int total = 1;
+        for (Actor actor : group.getChildren()) {
+            if (actor instanceof Group) {
+                total += countActors((Group) actor);
+            } else {
+                total++;
+            }
+        }
+        return total;
+    }
+}
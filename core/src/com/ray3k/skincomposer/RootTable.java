@@ -27,6 +27,7 @@ import com.ray3k.skincomposer.data.CustomProperty;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Cursor;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
@@ -77,14 +78,16 @@ import com.badlogic.gdx.scenes.scene2d.ui.Window;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.DragListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.scenes.scene2d.utils.Layout;
 import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IdentityMap;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
-import com.badlogic.gdx.utils.reflect.Field;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.ray3k.skincomposer.MenuButton.MenuButtonListener;
 import com.ray3k.skincomposer.data.ColorData;
 import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
@@ -95,6 +98,7 @@ import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
 import com.ray3k.skincomposer.dialog.DialogColorPicker;
 import com.ray3k.skincomposer.utils.Utils;
+import java.util.Objects;
 
 public class RootTable extends Table {
 
@@ -106,6 +110,8 @@ public class RootTable extends Table {
     private Array<StyleProperty> styleProperties;
     private Array<CustomProperty> customProperties;
     private Table stylePropertiesTable;
+    private final Array<PropertyRow> propertyRows;
+    private boolean updatingStyleProperties;
     private Table previewPropertiesTable;
     private Table previewTable;
     private ScrollPane stylePropertiesScrollPane;
@@ -131,7 +137,14 @@ public class RootTable extends Table {
     private static final String PARAGRAPH_SAMPLE_EXT = PARAGRAPH_SAMPLE
             + "\n\n\n" + PARAGRAPH_SAMPLE + "\n\n\n" + PARAGRAPH_SAMPLE + "\n\n\n"
             + PARAGRAPH_SAMPLE;
-    private final Array<BitmapFont> previewFonts;
+    private static final String LIST_SAMPLE = "Lorem ipsum\ndolor sit\namet, consectetur";
+    private final PreviewFontCache previewFonts;
+    private final PreviewResolver previewResolver;
+    private final IdentityMap<StyleData, NestedStyle> nestedStyles;
+    private int resourceHash;
+    private Actor previewWidget;
+    private TextTooltip previewToolTip;
+    private StyleData previewStyleData;
     private final ObjectMap<String, Drawable> drawablePairs;
     private TextureAtlas atlas;
     private MenuItem undoButton;
@@ -149,6 +162,11 @@ public class RootTable extends Table {
     private final DragListener vSplitPaneDragListener;
     private final InputListener hSplitPaneInputListener;
     private final InputListener vSplitPaneInputListener;
+    private boolean refreshDeferred;
+    private boolean stylePropertiesInvalid;
+    private boolean invalidPreserveScroll;
+    private boolean previewInvalid;
+    private boolean previewStyleInvalid;
 
     public RootTable(Main main) {
         super(main.getSkin());
@@ -230,7 +248,10 @@ public class RootTable extends Table {
         };
         
         scrollPaneListener = new ScrollPaneListener();
-        previewFonts = new Array<>();
+        previewFonts = new PreviewFontCache();
+        previewResolver = new PreviewResolver();
+        nestedStyles = new IdentityMap<>();
+        propertyRows = new Array<>();
         drawablePairs = new ObjectMap<>();
         
         produceAtlas();
@@ -311,7 +332,8 @@ public class RootTable extends Table {
         menuButton.setItems(new MenuItem("Settings...", RootTableEnum.SETTINGS),
                 new MenuItem("Colors...", RootTableEnum.COLORS),
                 new MenuItem("Fonts...", RootTableEnum.FONTS),
-                new MenuItem("Drawables...", RootTableEnum.DRAWABLES));
+                new MenuItem("Drawables...", RootTableEnum.DRAWABLES),
+                new MenuItem("Style Gallery...", RootTableEnum.GALLERY));
 
         menuButton.addListener(new MenuBarListener(menuButton));
 
@@ -618,8 +640,63 @@ public class RootTable extends Table {
         });
     }
 
+    /**
+     * Defers refreshStyleProperties(), refreshPreview() and
+     * refreshPreviewStyle() until the next frame. Calls made until then are
+     * coalesced so that each refresh runs at most once.
+     */
+    public void deferRefresh() {
+        refreshDeferred = true;
+    }
+    
+    /**
+     * Runs the refreshes collected since deferRefresh() was called.
+     */
+    public void flushRefresh() {
+        refreshDeferred = false;
+        
+        if (stylePropertiesInvalid) {
+            stylePropertiesInvalid = false;
+            refreshStyleProperties(invalidPreserveScroll);
+        }
+        
+        if (previewInvalid) {
+            previewInvalid = false;
+            previewStyleInvalid = false;
+            refreshPreview();
+        } else if (previewStyleInvalid) {
+            previewStyleInvalid = false;
+            refreshPreviewStyle();
+        }
+    }
+
+    @Override
+    public void act(float delta) {
+        if (refreshDeferred) {
+            flushRefresh();
+        }
+        super.act(delta);
+    }
+
+    /**
+     * Updates the style properties panel. If the selected style still has the
+     * same properties the panel was built for, only the values of the existing
+     * rows are updated. Otherwise the panel is rebuilt.
+     * @param preserveScroll 
+     */
     public void refreshStyleProperties(boolean preserveScroll) {
+        if (refreshDeferred) {
+            invalidPreserveScroll = stylePropertiesInvalid ? invalidPreserveScroll && preserveScroll : preserveScroll;
+            stylePropertiesInvalid = true;
+            return;
+        }
+        
         if (stylePropertiesTable != null && stylePropertiesScrollPane != null) {
+            if (hasSamePropertyRows()) {
+                updatePropertyRows();
+                return;
+            }
+            
             float scrollY;
             if (preserveScroll) {
                 scrollY = stylePropertiesScrollPane.getScrollY();
@@ -665,6 +742,8 @@ public class RootTable extends Table {
     }
 
     private void addStyleProperties(final Table left) {
+        propertyRows.clear();
+        
         Label label = new Label("Style Properties", getSkin(), "title");
         left.add(label);
 
@@ -689,6 +768,7 @@ public class RootTable extends Table {
 
         if (styleProperties != null) {
             for (StyleProperty styleProperty : styleProperties) {
+                Actor valueActor = null;
 
                 table.row();
                 if (styleProperty.type == Color.class) {
@@ -702,6 +782,7 @@ public class RootTable extends Table {
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new StylePropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.type == BitmapFont.class) {
                     BrowseField browseField;
                     if (styleProperty.optional) {
@@ -713,6 +794,7 @@ public class RootTable extends Table {
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new StylePropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.type == Drawable.class) {
                     BrowseField browseField;
                     if (styleProperty.optional) {
@@ -724,6 +806,7 @@ public class RootTable extends Table {
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new StylePropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.type == Float.TYPE) {
                     if (styleProperty.optional) {
                         label = new Label(styleProperty.name, getSkin());
@@ -740,6 +823,7 @@ public class RootTable extends Table {
                     table.add(spinner);
 
                     spinner.addListener(new StylePropertyChangeListener(styleProperty, spinner));
+                    valueActor = spinner;
                 } else if (styleProperty.type == ScrollPaneStyle.class) {
                     if (styleProperty.optional) {
                         label = new Label(styleProperty.name, getSkin());
@@ -772,6 +856,7 @@ public class RootTable extends Table {
                     table.add(selectBox);
 
                     selectBox.addListener(new StylePropertyChangeListener(styleProperty, selectBox));
+                    valueActor = selectBox;
                 } else if (styleProperty.type == ListStyle.class) {
                     if (styleProperty.optional) {
                         label = new Label(styleProperty.name, getSkin());
@@ -803,6 +888,7 @@ public class RootTable extends Table {
                     table.add(selectBox);
 
                     selectBox.addListener(new StylePropertyChangeListener(styleProperty, selectBox));
+                    valueActor = selectBox;
                 } else if (styleProperty.type == LabelStyle.class) {
                     if (styleProperty.optional) {
                         label = new Label(styleProperty.name, getSkin());
@@ -835,57 +921,36 @@ public class RootTable extends Table {
                     table.add(selectBox);
 
                     selectBox.addListener(new StylePropertyChangeListener(styleProperty, selectBox));
+                    valueActor = selectBox;
                 }
 
+                propertyRows.add(new PropertyRow(styleProperty, styleProperty.name, styleProperty.type, valueActor));
                 table.row();
             }
         } else if (customProperties != null) {
             for (CustomProperty styleProperty : customProperties) {
+                Actor valueActor = null;
                 if (styleProperty.getType() == PropertyType.COLOR) {
-                    String value = "";
-                    if (styleProperty.getValue() instanceof String) {
-                        for (ColorData color : main.getJsonData().getColors()) {
-                            if (color.getName().equals(styleProperty.getValue())) {
-                                value = (String) styleProperty.getValue();
-                                break;
-                            }
-                        }
-                    }
-                    BrowseField browseField = new BrowseField(value, styleProperty.getName(), getSkin(), "color");
+                    BrowseField browseField = new BrowseField(getCustomPropertyText(styleProperty), styleProperty.getName(), getSkin(), "color");
                     browseField.addListener(main.getHandListener());
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new CustomPropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.getType() == PropertyType.FONT) {
-                    String value = "";
-                    if (styleProperty.getValue() instanceof String) {
-                        for (FontData font : main.getJsonData().getFonts()) {
-                            if (font.getName().equals(styleProperty.getValue())) {
-                                value = (String) styleProperty.getValue();
-                                break;
-                            }
-                        }
-                    }
-                    BrowseField browseField = new BrowseField(value, styleProperty.getName(), getSkin(), "font");
+                    BrowseField browseField = new BrowseField(getCustomPropertyText(styleProperty), styleProperty.getName(), getSkin(), "font");
                     browseField.addListener(main.getHandListener());
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new CustomPropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.getType() == PropertyType.DRAWABLE) {
-                    String value = "";
-                    if (styleProperty.getValue() instanceof String) {
-                        for (DrawableData drawable : main.getAtlasData().getDrawables()) {
-                            if (drawable.name.equals(styleProperty.getValue())) {
-                                value = (String) styleProperty.getValue();
-                                break;
-                            }
-                        }
-                    }
-                    BrowseField browseField = new BrowseField(value, styleProperty.getName(), getSkin(), "drawable");
+                    BrowseField browseField = new BrowseField(getCustomPropertyText(styleProperty), styleProperty.getName(), getSkin(), "drawable");
                     browseField.addListener(main.getHandListener());
                     table.add(browseField).padTop(20.0f);
 
                     browseField.addListener(new CustomPropertyChangeListener(styleProperty, browseField));
+                    valueActor = browseField;
                 } else if (styleProperty.getType() == PropertyType.NUMBER) {
                     label = new Label(styleProperty.getName(), getSkin());
                     table.add(label).padTop(20.0f).fill(false).expand(false, false);
@@ -905,6 +970,7 @@ public class RootTable extends Table {
                     table.add(spinner);
 
                     spinner.addListener(new CustomPropertyChangeListener(styleProperty, spinner));
+                    valueActor = spinner;
                 } else if (styleProperty.getType() == PropertyType.TEXT) {
                     label = new Label(styleProperty.getName(), getSkin());
                     table.add(label).padTop(20.0f).fill(false).expand(false, false);
@@ -920,6 +986,7 @@ public class RootTable extends Table {
                     table.add(textField);
                     
                     textField.addListener(new CustomPropertyChangeListener(styleProperty, textField));
+                    valueActor = textField;
                 } else if (styleProperty.getType() == PropertyType.BOOL) {
                     label = new Label(styleProperty.getName(), getSkin());
                     table.add(label).padTop(20.0f).fill(false).expand(false, false);
@@ -934,8 +1001,11 @@ public class RootTable extends Table {
                     table.add(button).fill(false);
                     
                     button.addListener(new CustomPropertyChangeListener(styleProperty, button));
+                    valueActor = button;
                 }
                 
+                propertyRows.add(new PropertyRow(styleProperty, styleProperty.getName(), styleProperty.getType(), valueActor));
+                
                 Button duplicateButton = new Button(getSkin(), "duplicate");
                 table.add(duplicateButton).fill(false).expand(false, false).pad(0).bottom();
                 duplicateButton.addListener(new ChangeListener() {
@@ -996,6 +1066,173 @@ public class RootTable extends Table {
         }
     }
 
+    /**
+     * 
+     * @return true if the rows of the style properties panel were built for
+     * the current style properties and can be updated in place
+     */
+    private boolean hasSamePropertyRows() {
+        Array<?> properties = styleProperties != null ? styleProperties : customProperties;
+        if (properties == null || properties.size == 0 || properties.size != propertyRows.size) {
+            return false;
+        }
+        
+        for (int i = 0; i < properties.size; i++) {
+            Object property = properties.get(i);
+            PropertyRow row = propertyRows.get(i);
+            if (row.property != property) {
+                return false;
+            }
+            
+            if (property instanceof CustomProperty) {
+                CustomProperty customProperty = (CustomProperty) property;
+                if (!Objects.equals(customProperty.getName(), row.name) || customProperty.getType() != row.type) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Writes the current property values into the existing rows of the style
+     * properties panel. Actors and listeners are kept.
+     */
+    private void updatePropertyRows() {
+        Array<StyleData> scrollPaneStyles = main.getProjectData().getJsonData().getClassStyleMap().get(ScrollPane.class);
+        Array<StyleData> listStyles = main.getProjectData().getJsonData().getClassStyleMap().get(List.class);
+        Array<StyleData> labelStyles = main.getProjectData().getJsonData().getClassStyleMap().get(Label.class);
+        
+        updatingStyleProperties = true;
+        try {
+            for (PropertyRow row : propertyRows) {
+                if (row.property instanceof StyleProperty) {
+                    StyleProperty styleProperty = (StyleProperty) row.property;
+                    if (row.actor instanceof BrowseField) {
+                        String value = (String) styleProperty.value;
+                        ((BrowseField) row.actor).setValueText(value == null ? "" : value);
+                    } else if (row.actor instanceof Spinner) {
+                        updateSpinner((Spinner) row.actor, (Double) styleProperty.value);
+                    } else if (row.actor instanceof SelectBox) {
+                        Array<StyleData> styles;
+                        if (styleProperty.type == ScrollPaneStyle.class) {
+                            styles = scrollPaneStyles;
+                        } else if (styleProperty.type == ListStyle.class) {
+                            styles = listStyles;
+                        } else {
+                            styles = labelStyles;
+                        }
+                        updateSelectBox((SelectBox<StyleData>) row.actor, styles, (String) styleProperty.value);
+                    }
+                } else {
+                    CustomProperty customProperty = (CustomProperty) row.property;
+                    if (row.actor instanceof BrowseField) {
+                        ((BrowseField) row.actor).setValueText(getCustomPropertyText(customProperty));
+                    } else if (row.actor instanceof Spinner) {
+                        if (customProperty.getValue() instanceof Float) {
+                            customProperty.setValue((double) (float) customProperty.getValue());
+                        }
+                        double value = 0.0;
+                        if (customProperty.getValue() instanceof Double) {
+                            value = (Double) customProperty.getValue();
+                        }
+                        updateSpinner((Spinner) row.actor, value);
+                    } else if (row.actor instanceof TextField) {
+                        String value = "";
+                        if (customProperty.getValue() instanceof String) {
+                            value = (String) customProperty.getValue();
+                        }
+                        TextField textField = (TextField) row.actor;
+                        if (!textField.getText().equals(value)) {
+                            textField.setText(value);
+                        }
+                    } else if (row.actor instanceof Button) {
+                        boolean value = false;
+                        if (customProperty.getValue() instanceof Boolean) {
+                            value = (boolean) customProperty.getValue();
+                        }
+                        ((Button) row.actor).setChecked(value);
+                    }
+                }
+            }
+        } finally {
+            updatingStyleProperties = false;
+        }
+    }
+    
+    private void updateSpinner(Spinner spinner, double value) {
+        if (spinner.getValue() != value) {
+            spinner.setValue(value);
+        }
+    }
+    
+    private void updateSelectBox(SelectBox<StyleData> selectBox, Array<StyleData> styles, String value) {
+        if (!selectBox.getItems().equals(styles)) {
+            selectBox.setItems(styles);
+        }
+        
+        //like a new select box, fall back to the first style if value is missing
+        int index = 0;
+        if (value != null) {
+            for (int i = 0; i < styles.size; i++) {
+                if (styles.get(i).name.equals(value)) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        
+        if (styles.size > 0 && selectBox.getSelectedIndex() != index) {
+            selectBox.setSelectedIndex(index);
+        }
+    }
+    
+    /**
+     * 
+     * @param customProperty a color, font, or drawable property
+     * @return the value of the property if it refers to an existing resource,
+     * otherwise an empty String
+     */
+    private String getCustomPropertyText(CustomProperty customProperty) {
+        if (customProperty.getValue() instanceof String) {
+            String value = (String) customProperty.getValue();
+            if (customProperty.getType() == PropertyType.COLOR) {
+                for (ColorData color : main.getJsonData().getColors()) {
+                    if (color.getName().equals(value)) {
+                        return value;
+                    }
+                }
+            } else if (customProperty.getType() == PropertyType.FONT) {
+                for (FontData font : main.getJsonData().getFonts()) {
+                    if (font.getName().equals(value)) {
+                        return value;
+                    }
+                }
+            } else if (customProperty.getType() == PropertyType.DRAWABLE) {
+                for (DrawableData drawable : main.getAtlasData().getDrawables()) {
+                    if (drawable.name.equals(value)) {
+                        return value;
+                    }
+                }
+            }
+        }
+        return "";
+    }
+    
+    private static class PropertyRow {
+        private final Object property;
+        private final String name;
+        private final Object type;
+        private final Actor actor;
+
+        public PropertyRow(Object property, String name, Object type, Actor actor) {
+            this.property = property;
+            this.name = name;
+            this.type = type;
+            this.actor = actor;
+        }
+    }
+    
     private class StylePropertyChangeListener extends ChangeListener {
 
         private final StyleProperty styleProp;
@@ -1008,7 +1245,9 @@ public class RootTable extends Table {
 
         @Override
         public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-            fire(new StylePropertyEvent(styleProp, styleActor));
+            if (!updatingStyleProperties) {
+                fire(new StylePropertyEvent(styleProp, styleActor));
+            }
         }
     }
     
@@ -1024,7 +1263,9 @@ public class RootTable extends Table {
 
         @Override
         public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-            fire(new CustomPropertyEvent(styleProp, styleActor, CustomPropertyEnum.CHANGE_VALUE));
+            if (!updatingStyleProperties) {
+                fire(new CustomPropertyEvent(styleProp, styleActor, CustomPropertyEnum.CHANGE_VALUE));
+            }
         }
     }
 
@@ -1139,7 +1380,7 @@ public class RootTable extends Table {
                                     browseField.getTextButton().setText((int) (color.r * 255) + "," + (int) (color.g * 255) + "," + (int) (color.b * 255) + "," + (int) (color.a * 255));
                                     previewProperties.put("bgcolor", color);
                                     previewBgColor.set(color);
-                                    refreshPreview();
+                                    refreshPreviewStyle();
                                 }
                             }
                         });
@@ -1267,7 +1508,7 @@ public class RootTable extends Table {
                 } else if (clazz.equals(List.class)) {
                     t.row();
                     t.add(new Label("List Items: ", getSkin())).right();
-                    TextArea listItemsTextArea = new TextArea("Lorem ipsum\ndolor sit\namet, consectetur", getSkin());
+                    TextArea listItemsTextArea = new TextArea(LIST_SAMPLE, getSkin());
                     listItemsTextArea.setFocusTraversal(false);
                     listItemsTextArea.setPrefRows(3);
                     listItemsTextArea.addListener(main.getIbeamListener());
@@ -1656,7 +1897,7 @@ public class RootTable extends Table {
 
                     t.row();
                     t.add(new Label("List Items: ", getSkin())).right();
-                    TextArea listItemsTextArea = new TextArea("Lorem ipsum\ndolor sit\namet, consectetur", getSkin());
+                    TextArea listItemsTextArea = new TextArea(LIST_SAMPLE, getSkin());
                     listItemsTextArea.setFocusTraversal(false);
                     listItemsTextArea.setPrefRows(3);
                     listItemsTextArea.addListener(main.getIbeamListener());
@@ -2041,7 +2282,7 @@ public class RootTable extends Table {
                                     browseField.getTextButton().setText((int) (color.r * 255) + "," + (int) (color.g * 255) + "," + (int) (color.b * 255) + "," + (int) (color.a * 255));
                                     previewProperties.put("bgcolor", color);
                                     previewBgColor.set(color);
-                                    refreshPreview();
+                                    refreshPreviewStyle();
                                 }
                             }
                         });
@@ -2056,16 +2297,26 @@ public class RootTable extends Table {
     }
     
     public void refreshPreview() {        
+        if (refreshDeferred) {
+            previewInvalid = true;
+            return;
+        }
+        
         if (previewTable != null) {
             previewTable.clear();
+            previewWidget = null;
+            previewToolTip = null;
+            previewStyleData = null;
             previewTable.setBackground("white");
             previewTable.setColor((Color) previewProperties.get("bgcolor"));
 
-            for (BitmapFont font : previewFonts) {
-                font.dispose();
-            }
+            refreshPreviewResources();
 
-            if (classSelectBox.getSelectedIndex() >= 0 && classSelectBox.getSelectedIndex() < Main.BASIC_CLASSES.length) {
+            if (main.getAtlasData().isAtlasPending()) {
+                Label label = new Label("Loading preview...", getSkin());
+                label.setAlignment(Align.center);
+                previewTable.add(label);
+            } else if (classSelectBox.getSelectedIndex() >= 0 && classSelectBox.getSelectedIndex() < Main.BASIC_CLASSES.length) {
                 StyleData styleData = getSelectedStyle();
                 Class clazz = Main.BASIC_CLASSES[classSelectBox.getSelectedIndex()];
 
@@ -2086,158 +2337,19 @@ public class RootTable extends Table {
                     label.setAlignment(Align.center);
                     previewTable.add(label);
                 } else {
-                    Actor widget = null;
-                    if (clazz.equals(Button.class)) {
-                        Button.ButtonStyle style = createPreviewStyle(Button.ButtonStyle.class, styleData);
-                        widget = new Button(style);
-                        ((Button)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(CheckBox.class)) {
-                        CheckBox.CheckBoxStyle style = createPreviewStyle(CheckBox.CheckBoxStyle.class, styleData);
-                        widget = new CheckBox("", style);
-                        ((CheckBox)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        ((CheckBox)widget).setText((String) previewProperties.get("text"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(ImageButton.class)) {
-                        ImageButtonStyle style = createPreviewStyle(ImageButtonStyle.class, styleData);
-                        widget = new ImageButton(style);
-                        ((ImageButton)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(ImageTextButton.class)) {
-                        ImageTextButton.ImageTextButtonStyle style = createPreviewStyle(ImageTextButton.ImageTextButtonStyle.class, styleData);
-                        widget = new ImageTextButton("", style);
-                        ((ImageTextButton)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        ((ImageTextButton)widget).setText((String) previewProperties.get("text"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(Label.class)) {
-                        LabelStyle style = createPreviewStyle(LabelStyle.class, styleData);
-                        widget = new Label("", style);
-                        ((Label)widget).setText((String) previewProperties.get("text"));
-                    } else if (clazz.equals(List.class)) {
-                        ListStyle style = createPreviewStyle(ListStyle.class, styleData);
-                        widget = new List(style);
-                        Array<String> items = new Array<>(((String) previewProperties.get("text")).split("\\n"));
-                        ((List)widget).setItems(items);
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(ProgressBar.class)) {
-                        ProgressBar.ProgressBarStyle style = createPreviewStyle(ProgressBar.ProgressBarStyle.class, styleData);
-                        widget = new ProgressBar((float) (double) previewProperties.get("minimum"), (float) (double) previewProperties.get("maximum"), (float) (double) previewProperties.get("increment"), (boolean) previewProperties.get("orientation"), style);
-                        ((ProgressBar) widget).setValue((float) (double) previewProperties.get("value"));
-                        ((ProgressBar)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                    } else if (clazz.equals(ScrollPane.class)) {
-                        ScrollPaneStyle style = createPreviewStyle(ScrollPaneStyle.class, styleData);
-                        Label label = new Label("", getSkin());
-                        widget = new ScrollPane(label, style);
-                        ((ScrollPane) widget).setScrollbarsOnTop((boolean) previewProperties.get("scrollbarsOnTop"));
-                        ((ScrollPane) widget).setScrollBarPositions((boolean) previewProperties.get("hScrollBarPosition"), (boolean) previewProperties.get("vScrollBarPosition"));
-                        ((ScrollPane) widget).setScrollingDisabled((boolean) previewProperties.get("hScrollDisabled"), (boolean) previewProperties.get("vScrollDisabled"));
-                        ((ScrollPane) widget).setForceScroll((boolean) previewProperties.get("forceHscroll"), (boolean) previewProperties.get("forceVscroll"));
-                        ((ScrollPane) widget).setVariableSizeKnobs((boolean) previewProperties.get("variableSizeKnobs"));
-                        ((ScrollPane) widget).setOverscroll((boolean) previewProperties.get("hOverscroll"), (boolean) previewProperties.get("vOverscroll"));
-                        ((ScrollPane) widget).setFadeScrollBars((boolean) previewProperties.get("fadeScroll"));
-                        ((ScrollPane) widget).setSmoothScrolling((boolean) previewProperties.get("smoothScroll"));
-                        ((ScrollPane) widget).setFlickScroll((boolean) previewProperties.get("flickScroll"));
-                        ((ScrollPane) widget).setClamp((boolean) previewProperties.get("clamp"));
-                        label.setText((String) previewProperties.get("text"));
-                    } else if (clazz.equals(SelectBox.class)) {
-                        SelectBox.SelectBoxStyle style = createPreviewStyle(SelectBox.SelectBoxStyle.class, styleData);
-                        widget = new SelectBox(style);
-                        ((SelectBox)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        Array<String> items = new Array<>(((String) previewProperties.get("text")).split("\\n"));
-                        ((SelectBox)widget).setItems(items);
-                        widget.addListener(main.getHandListener());
-                        ((SelectBox)widget).getList().addListener(main.getHandListener());
-                    } else if (clazz.equals(Slider.class)) {
-                        Slider.SliderStyle style = createPreviewStyle(Slider.SliderStyle.class, styleData);
-                        widget = new Slider((float) (double) previewProperties.get("minimum"), (float) (double) previewProperties.get("maximum"), (float) (double) previewProperties.get("increment"), (boolean) previewProperties.get("orientation"), style);
-                        ((Slider)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(SplitPane.class)) {
-                        SplitPane.SplitPaneStyle style = createPreviewStyle(SplitPane.SplitPaneStyle.class, styleData);
-                        Label label1 = new Label("", getSkin());
-                        Label label2 = new Label("", getSkin());
-                        widget = new SplitPane(label1, label2, (boolean) previewProperties.get("orientation"), style);
-                        label1.setText((String) previewProperties.get("text"));
-                        label2.setText((String) previewProperties.get("text"));
-                        
-                        if ((boolean) previewProperties.get("orientation")) {
-                            widget.addListener(vSplitPaneDragListener);
-                            widget.addListener(vSplitPaneInputListener);
-                        } else {
-                            widget.addListener(hSplitPaneDragListener);
-                            widget.addListener(hSplitPaneInputListener);
-                        }
-                    } else if (clazz.equals(TextButton.class)) {
-                        TextButtonStyle style = createPreviewStyle(TextButtonStyle.class, styleData);
-                        widget = new TextButton("", style);
-                        ((TextButton)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        ((TextButton)widget).setText((String) previewProperties.get("text"));
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(TextField.class)) {
-                        TextFieldStyle style = createPreviewStyle(TextFieldStyle.class, styleData);
-                        widget = new TextField("", style);
-                        ((TextField)widget).setFocusTraversal(false);
-                        ((TextField)widget).setDisabled((boolean) previewProperties.get("disabled"));
-                        ((TextField)widget).setPasswordMode((boolean) previewProperties.get("passwordMode"));
-                        ((TextField)widget).setAlignment((int) previewProperties.get("alignment"));
-                        ((TextField)widget).setText((String) previewProperties.get("text"));
-                        ((TextField)widget).setMessageText((String) previewProperties.get("message"));
-                        String string = (String) previewProperties.get("password");
-                        if (string.length() > 0) {
-                            ((TextField)widget).setPasswordCharacter(string.charAt(0));
-                        }
-                        widget.addListener(main.getIbeamListener());
-                    } else if (clazz.equals(TextTooltip.class)) {
-                        TextTooltip.TextTooltipStyle style = createPreviewStyle(TextTooltip.TextTooltipStyle.class, styleData);
-
-                        TooltipManager manager = new TooltipManager();
-                        manager.animations = false;
-                        manager.initialTime = 0.0f;
-                        manager.resetTime = 0.0f;
-                        manager.subsequentTime = 0.0f;
-                        manager.hideAll();
-                        manager.instant();
-                        TextTooltip toolTip = new TextTooltip((String) previewProperties.get("text"), manager, style);
-
-                        widget = new Label("Hover over me", getSkin());
-                        widget.addListener(toolTip);
-                    } else if (clazz.equals(Touchpad.class)) {
-                        Touchpad.TouchpadStyle style = createPreviewStyle(Touchpad.TouchpadStyle.class, styleData);
-                        widget = new Touchpad(0, style);
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(Tree.class)) {
-                        Tree.TreeStyle style = createPreviewStyle(Tree.TreeStyle.class, styleData);
-                        widget = new Tree(style);
-                        String[] lines = {"this", "is", "a", "test"};
-                        Tree.Node parentNode = null;
-                        for (String line: lines) {
-                            Label label = new Label(line, getSkin());
-                            Tree.Node node = new Tree.Node(label);
-                            if (parentNode == null) {
-                                ((Tree) widget).add(node);
-                            } else {
-                                parentNode.add(node);
+                    Actor widget = createPreviewWidget(clazz, styleData, previewTable);
+                    if (widget != null && clazz.equals(TextTooltip.class)) {
+                        for (EventListener listener : widget.getListeners()) {
+                            if (listener instanceof TextTooltip) {
+                                previewToolTip = (TextTooltip) listener;
                             }
-                            parentNode = node;
                         }
-                        widget.addListener(main.getHandListener());
-                    } else if (clazz.equals(Window.class))  {
-                        Window.WindowStyle style = createPreviewStyle(Window.WindowStyle.class, styleData);
-                        
-                        if (style.stageBackground != null) {
-                            previewTable.setBackground(style.stageBackground);
-                            previewTable.setColor(Color.WHITE);
-                            style.stageBackground = null;
-                        }
-
-                        Label sampleText = new Label("", getSkin());
-                        sampleText.setText((String) previewProperties.get("text"));
-
-                        widget = new Window((String) previewProperties.get("title"), style);
-                        ((Window)widget).add(sampleText);
                     }
 
-                    if (widget != null) {                        
+                    if (widget != null) {
+                        previewWidget = widget;
+                        previewStyleData = styleData;
+                        
                         switch ((int) previewProperties.get("size")) {
                             case (0):
                                 previewTable.add(widget).size(10.0f);
@@ -2417,8 +2529,7 @@ public class RootTable extends Table {
                                     for (FontData fd : main.getJsonData().getFonts()) {
                                         if (fd.getName().equals(fontName)) {
                                             fontData = fd;
-                                            font = new BitmapFont(fd.file);
-                                            previewFonts.add(font);
+                                            font = previewFonts.get(fd);
                                             break;
                                         }
                                     }
@@ -2452,68 +2563,474 @@ public class RootTable extends Table {
         }
     }
     
+    /**
+     * Creates the preview widget for a style of one of the basic classes,
+     * configured with the current preview properties. The style must have all
+     * mandatory fields.
+     * @param clazz one of Main.BASIC_CLASSES
+     * @param styleData
+     * @param stageTable the table that receives the stageBackground of a
+     * WindowStyle, may be null
+     * @return the widget or null if clazz isn't supported
+     */
+    public Actor createPreviewWidget(Class clazz, StyleData styleData, Table stageTable) {
+        return createPreviewWidget(clazz, styleData, stageTable, getPreviewProperties(clazz, styleData));
+    }
+    
+    /**
+     * Creates the preview widget for a style of one of the basic classes. The
+     * style must have all mandatory fields.
+     * @param clazz one of Main.BASIC_CLASSES
+     * @param styleData
+     * @param stageTable the table that receives the stageBackground of a
+     * WindowStyle, may be null
+     * @param properties the preview properties for clazz, see
+     * {@link #getDefaultPreviewProperties(java.lang.Class, com.ray3k.skincomposer.data.StyleData)}
+     * @return the widget or null if clazz isn't supported
+     */
+    public Actor createPreviewWidget(Class clazz, StyleData styleData, Table stageTable, ObjectMap<String, Object> properties) {
+        Actor widget = null;
+        if (clazz.equals(Button.class)) {
+            Button.ButtonStyle style = createPreviewStyle(Button.ButtonStyle.class, styleData);
+            widget = new Button(style);
+            ((Button)widget).setDisabled((boolean) properties.get("disabled"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(CheckBox.class)) {
+            CheckBox.CheckBoxStyle style = createPreviewStyle(CheckBox.CheckBoxStyle.class, styleData);
+            widget = new CheckBox("", style);
+            ((CheckBox)widget).setDisabled((boolean) properties.get("disabled"));
+            ((CheckBox)widget).setText((String) properties.get("text"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(ImageButton.class)) {
+            ImageButtonStyle style = createPreviewStyle(ImageButtonStyle.class, styleData);
+            widget = new ImageButton(style);
+            ((ImageButton)widget).setDisabled((boolean) properties.get("disabled"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(ImageTextButton.class)) {
+            ImageTextButton.ImageTextButtonStyle style = createPreviewStyle(ImageTextButton.ImageTextButtonStyle.class, styleData);
+            widget = new ImageTextButton("", style);
+            ((ImageTextButton)widget).setDisabled((boolean) properties.get("disabled"));
+            ((ImageTextButton)widget).setText((String) properties.get("text"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(Label.class)) {
+            LabelStyle style = createPreviewStyle(LabelStyle.class, styleData);
+            widget = new Label("", style);
+            ((Label)widget).setText((String) properties.get("text"));
+        } else if (clazz.equals(List.class)) {
+            ListStyle style = createPreviewStyle(ListStyle.class, styleData);
+            widget = new List(style);
+            Array<String> items = new Array<>(((String) properties.get("text")).split("\\n"));
+            ((List)widget).setItems(items);
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(ProgressBar.class)) {
+            ProgressBar.ProgressBarStyle style = createPreviewStyle(ProgressBar.ProgressBarStyle.class, styleData);
+            widget = new ProgressBar((float) (double) properties.get("minimum"), (float) (double) properties.get("maximum"), (float) (double) properties.get("increment"), (boolean) properties.get("orientation"), style);
+            ((ProgressBar) widget).setValue((float) (double) properties.get("value"));
+            ((ProgressBar)widget).setDisabled((boolean) properties.get("disabled"));
+        } else if (clazz.equals(ScrollPane.class)) {
+            ScrollPaneStyle style = createPreviewStyle(ScrollPaneStyle.class, styleData);
+            Label label = new Label("", getSkin());
+            widget = new ScrollPane(label, style);
+            ((ScrollPane) widget).setScrollbarsOnTop((boolean) properties.get("scrollbarsOnTop"));
+            ((ScrollPane) widget).setScrollBarPositions((boolean) properties.get("hScrollBarPosition"), (boolean) properties.get("vScrollBarPosition"));
+            ((ScrollPane) widget).setScrollingDisabled((boolean) properties.get("hScrollDisabled"), (boolean) properties.get("vScrollDisabled"));
+            ((ScrollPane) widget).setForceScroll((boolean) properties.get("forceHscroll"), (boolean) properties.get("forceVscroll"));
+            ((ScrollPane) widget).setVariableSizeKnobs((boolean) properties.get("variableSizeKnobs"));
+            ((ScrollPane) widget).setOverscroll((boolean) properties.get("hOverscroll"), (boolean) properties.get("vOverscroll"));
+            ((ScrollPane) widget).setFadeScrollBars((boolean) properties.get("fadeScroll"));
+            ((ScrollPane) widget).setSmoothScrolling((boolean) properties.get("smoothScroll"));
+            ((ScrollPane) widget).setFlickScroll((boolean) properties.get("flickScroll"));
+            ((ScrollPane) widget).setClamp((boolean) properties.get("clamp"));
+            label.setText((String) properties.get("text"));
+        } else if (clazz.equals(SelectBox.class)) {
+            SelectBox.SelectBoxStyle style = createPreviewStyle(SelectBox.SelectBoxStyle.class, styleData);
+            widget = new SelectBox(style);
+            ((SelectBox)widget).setDisabled((boolean) properties.get("disabled"));
+            Array<String> items = new Array<>(((String) properties.get("text")).split("\\n"));
+            ((SelectBox)widget).setItems(items);
+            widget.addListener(main.getHandListener());
+            ((SelectBox)widget).getList().addListener(main.getHandListener());
+        } else if (clazz.equals(Slider.class)) {
+            Slider.SliderStyle style = createPreviewStyle(Slider.SliderStyle.class, styleData);
+            widget = new Slider((float) (double) properties.get("minimum"), (float) (double) properties.get("maximum"), (float) (double) properties.get("increment"), (boolean) properties.get("orientation"), style);
+            ((Slider)widget).setDisabled((boolean) properties.get("disabled"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(SplitPane.class)) {
+            SplitPane.SplitPaneStyle style = createPreviewStyle(SplitPane.SplitPaneStyle.class, styleData);
+            Label label1 = new Label("", getSkin());
+            Label label2 = new Label("", getSkin());
+            widget = new SplitPane(label1, label2, (boolean) properties.get("orientation"), style);
+            label1.setText((String) properties.get("text"));
+            label2.setText((String) properties.get("text"));
+            
+            if ((boolean) properties.get("orientation")) {
+                widget.addListener(vSplitPaneDragListener);
+                widget.addListener(vSplitPaneInputListener);
+            } else {
+                widget.addListener(hSplitPaneDragListener);
+                widget.addListener(hSplitPaneInputListener);
+            }
+        } else if (clazz.equals(TextButton.class)) {
+            TextButtonStyle style = createPreviewStyle(TextButtonStyle.class, styleData);
+            widget = new TextButton("", style);
+            ((TextButton)widget).setDisabled((boolean) properties.get("disabled"));
+            ((TextButton)widget).setText((String) properties.get("text"));
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(TextField.class)) {
+            TextFieldStyle style = createPreviewStyle(TextFieldStyle.class, styleData);
+            widget = new TextField("", style);
+            ((TextField)widget).setFocusTraversal(false);
+            ((TextField)widget).setDisabled((boolean) properties.get("disabled"));
+            ((TextField)widget).setPasswordMode((boolean) properties.get("passwordMode"));
+            ((TextField)widget).setAlignment((int) properties.get("alignment"));
+            ((TextField)widget).setText((String) properties.get("text"));
+            ((TextField)widget).setMessageText((String) properties.get("message"));
+            String string = (String) properties.get("password");
+            if (string.length() > 0) {
+                ((TextField)widget).setPasswordCharacter(string.charAt(0));
+            }
+            widget.addListener(main.getIbeamListener());
+        } else if (clazz.equals(TextTooltip.class)) {
+            TextTooltip.TextTooltipStyle style = createPreviewStyle(TextTooltip.TextTooltipStyle.class, styleData);
+
+            TooltipManager manager = new TooltipManager();
+            manager.animations = false;
+            manager.initialTime = 0.0f;
+            manager.resetTime = 0.0f;
+            manager.subsequentTime = 0.0f;
+            manager.hideAll();
+            manager.instant();
+            TextTooltip toolTip = new TextTooltip((String) properties.get("text"), manager, style);
+
+            widget = new Label("Hover over me", getSkin());
+            widget.addListener(toolTip);
+        } else if (clazz.equals(Touchpad.class)) {
+            Touchpad.TouchpadStyle style = createPreviewStyle(Touchpad.TouchpadStyle.class, styleData);
+            widget = new Touchpad(0, style);
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(Tree.class)) {
+            Tree.TreeStyle style = createPreviewStyle(Tree.TreeStyle.class, styleData);
+            widget = new Tree(style);
+            String[] lines = {"this", "is", "a", "test"};
+            Tree.Node parentNode = null;
+            for (String line: lines) {
+                Label label = new Label(line, getSkin());
+                Tree.Node node = new Tree.Node(label);
+                if (parentNode == null) {
+                    ((Tree) widget).add(node);
+                } else {
+                    parentNode.add(node);
+                }
+                parentNode = node;
+            }
+            widget.addListener(main.getHandListener());
+        } else if (clazz.equals(Window.class))  {
+            Window.WindowStyle style = createPreviewStyle(Window.WindowStyle.class, styleData);
+            
+            if (style.stageBackground != null) {
+                if (stageTable != null) {
+                    stageTable.setBackground(style.stageBackground);
+                    stageTable.setColor(Color.WHITE);
+                }
+                style.stageBackground = null;
+            }
+
+            Label sampleText = new Label("", getSkin());
+            sampleText.setText((String) properties.get("text"));
+
+            widget = new Window((String) properties.get("title"), style);
+            ((Window)widget).add(sampleText);
+        }
+        
+        return widget;
+    }
+    
+    /**
+     * Returns the preview properties the editor uses for clazz. These are the
+     * live properties if clazz is the selected class, otherwise the defaults.
+     * @param clazz one of Main.BASIC_CLASSES
+     * @param styleData
+     * @return 
+     */
+    public ObjectMap<String, Object> getPreviewProperties(Class clazz, StyleData styleData) {
+        int classIndex = classSelectBox.getSelectedIndex();
+        if (classIndex >= 0 && classIndex < Main.BASIC_CLASSES.length && Main.BASIC_CLASSES[classIndex].equals(clazz)) {
+            return previewProperties;
+        } else {
+            return getDefaultPreviewProperties(clazz, styleData);
+        }
+    }
+    
+    /**
+     * Returns the preview properties that refreshPreviewProperties() starts
+     * out with for clazz, without reading any editor state.
+     * @param clazz one of Main.BASIC_CLASSES
+     * @param styleData the style to preview, its name selects the orientation
+     * of sliders, progress bars, and split panes
+     * @return A new map with every property createPreviewWidget() reads.
+     */
+    public static ObjectMap<String, Object> getDefaultPreviewProperties(Class clazz, StyleData styleData) {
+        ObjectMap<String, Object> properties = new ObjectMap<>();
+        boolean vertical = styleData != null && styleData.name.contains("vert");
+        
+        if (clazz.equals(Button.class) || clazz.equals(ImageButton.class)) {
+            properties.put("disabled", false);
+        } else if (clazz.equals(CheckBox.class) || clazz.equals(ImageTextButton.class) || clazz.equals(TextButton.class)) {
+            properties.put("disabled", false);
+            properties.put("text", TEXT_SAMPLE);
+        } else if (clazz.equals(Label.class) || clazz.equals(TextTooltip.class)) {
+            properties.put("text", TEXT_SAMPLE);
+        } else if (clazz.equals(List.class)) {
+            properties.put("text", LIST_SAMPLE);
+        } else if (clazz.equals(ProgressBar.class) || clazz.equals(Slider.class)) {
+            properties.put("disabled", false);
+            properties.put("value", 0.0);
+            properties.put("minimum", 0.0);
+            properties.put("maximum", 100.0);
+            properties.put("increment", 1.0);
+            properties.put("orientation", vertical);
+        } else if (clazz.equals(ScrollPane.class)) {
+            properties.put("scrollbarsOnTop", false);
+            properties.put("hScrollBarPosition", true);
+            properties.put("vScrollBarPosition", true);
+            properties.put("hScrollDisabled", false);
+            properties.put("vScrollDisabled", false);
+            properties.put("forceHscroll", false);
+            properties.put("forceVscroll", false);
+            properties.put("variableSizeKnobs", true);
+            properties.put("hOverscroll", true);
+            properties.put("vOverscroll", true);
+            properties.put("fadeScroll", false);
+            properties.put("smoothScroll", true);
+            properties.put("flickScroll", true);
+            properties.put("clamp", true);
+            properties.put("text", PARAGRAPH_SAMPLE_EXT);
+        } else if (clazz.equals(SelectBox.class)) {
+            properties.put("disabled", false);
+            properties.put("text", LIST_SAMPLE);
+        } else if (clazz.equals(SplitPane.class)) {
+            properties.put("orientation", vertical);
+            properties.put("text", PARAGRAPH_SAMPLE);
+        } else if (clazz.equals(TextField.class)) {
+            properties.put("disabled", false);
+            properties.put("passwordMode", false);
+            properties.put("password", "*");
+            properties.put("alignment", Align.left);
+            properties.put("text", TEXT_SAMPLE);
+            properties.put("message", TEXT_SAMPLE);
+        } else if (clazz.equals(Window.class)) {
+            properties.put("title", TEXT_SAMPLE);
+            properties.put("text", PARAGRAPH_SAMPLE);
+        }
+        return properties;
+    }
+    
+    /**
+     * Updates the style of the live preview widget in place after a change to
+     * the properties of the selected style. The widget is kept along with its
+     * preview properties and listeners. Falls back to a full refreshPreview()
+     * if the class or style selection changed or there is no widget to patch.
+     */
+    public void refreshPreviewStyle() {
+        if (refreshDeferred) {
+            previewStyleInvalid = true;
+            return;
+        }
+        
+        StyleData styleData = previewWidget == null ? null : getSelectedStyle();
+        if (styleData == null || styleData != previewStyleData
+                || previewWidget.getStage() == null
+                || main.getAtlasData().isAtlasPending()
+                || !styleData.hasMandatoryFields() || styleData.hasAllNullFields()) {
+            refreshPreview();
+            return;
+        }
+        
+        refreshPreviewResources();
+        
+        previewTable.setBackground("white");
+        previewTable.setColor((Color) previewProperties.get("bgcolor"));
+        
+        try {
+            if (previewToolTip != null) {
+                previewToolTip.setStyle(createPreviewStyle(TextTooltip.TextTooltipStyle.class, styleData));
+            } else if (previewWidget instanceof Button) {
+                Button button = (Button) previewWidget;
+                button.setStyle(patchPreviewStyle(button.getStyle(), styleData));
+            } else if (previewWidget instanceof Label) {
+                Label label = (Label) previewWidget;
+                label.setStyle(patchPreviewStyle(label.getStyle(), styleData));
+            } else if (previewWidget instanceof List) {
+                List list = (List) previewWidget;
+                list.setStyle(patchPreviewStyle(list.getStyle(), styleData));
+            } else if (previewWidget instanceof ProgressBar) {
+                ProgressBar progressBar = (ProgressBar) previewWidget;
+                progressBar.setStyle(patchPreviewStyle(progressBar.getStyle(), styleData));
+            } else if (previewWidget instanceof ScrollPane) {
+                ScrollPane scrollPane = (ScrollPane) previewWidget;
+                scrollPane.setStyle(patchPreviewStyle(scrollPane.getStyle(), styleData));
+            } else if (previewWidget instanceof SelectBox) {
+                SelectBox selectBox = (SelectBox) previewWidget;
+                selectBox.setStyle(patchPreviewStyle(selectBox.getStyle(), styleData));
+            } else if (previewWidget instanceof SplitPane) {
+                SplitPane splitPane = (SplitPane) previewWidget;
+                splitPane.setStyle(patchPreviewStyle(splitPane.getStyle(), styleData));
+            } else if (previewWidget instanceof TextField) {
+                TextField textField = (TextField) previewWidget;
+                textField.setStyle(patchPreviewStyle(textField.getStyle(), styleData));
+            } else if (previewWidget instanceof Touchpad) {
+                Touchpad touchpad = (Touchpad) previewWidget;
+                touchpad.setStyle(patchPreviewStyle(touchpad.getStyle(), styleData));
+            } else if (previewWidget instanceof Tree) {
+                Tree tree = (Tree) previewWidget;
+                tree.setStyle(patchPreviewStyle(tree.getStyle(), styleData));
+            } else if (previewWidget instanceof Window) {
+                Window window = (Window) previewWidget;
+                Window.WindowStyle style = patchPreviewStyle(window.getStyle(), styleData);
+                if (style.stageBackground != null) {
+                    previewTable.setBackground(style.stageBackground);
+                    previewTable.setColor(Color.WHITE);
+                    style.stageBackground = null;
+                }
+                window.setStyle(style);
+            }
+        } catch (ReflectionException | IllegalArgumentException e) {
+            Gdx.app.error(getClass().getName(), "Error while updating preview style.", e);
+            refreshPreview();
+            return;
+        }
+        
+        ((Layout) previewWidget).invalidateHierarchy();
+    }
+    
+    /**
+     * Drops cached preview fonts and nested styles that no longer match the
+     * colors and fonts of the project. Call before creating preview widgets.
+     */
+    public void refreshPreviewResources() {
+        previewFonts.retain(main.getJsonData().getFonts());
+        int hash = resourceHash(main.getJsonData().getColors(), main.getJsonData().getFonts());
+        if (hash != resourceHash) {
+            resourceHash = hash;
+            nestedStyles.clear();
+        }
+    }
+    
+    private <T> T patchPreviewStyle(T style, StyleData styleData) throws ReflectionException {
+        return StyleBinder.get((Class<T>) style.getClass()).apply(styleData, previewResolver, style);
+    }
+    
     private <T> T createPreviewStyle(Class<T> clazz, StyleData styleData) {
-        T returnValue = null;
         try {
-            returnValue = ClassReflection.newInstance(clazz);
-            Field[] fields = ClassReflection.getFields(clazz);
-            for (Field field : fields) {
-                Object value = styleData.properties.get(field.getName()).value;
-                if (value != null) {
-                    if (field.getType().equals(Drawable.class)) {
-                        field.set(returnValue, drawablePairs.get((String) value));
-                    } else if (field.getType().equals(Color.class)) {
-                        for (ColorData data : main.getProjectData().getJsonData().getColors()) {
-                            if (value.equals(data.getName())) {
-                                field.set(returnValue, data.color);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(BitmapFont.class)) {
-                        for (FontData data : main.getProjectData().getJsonData().getFonts()) {
-                            if (value.equals(data.getName())) {
-                                BitmapFont font = new BitmapFont(data.file);
-                                previewFonts.add(font);
-                                field.set(returnValue, font);
-                            }
-                        }
-                    } else if (field.getType().equals(Float.TYPE)) {
-                        field.set(returnValue, (float) value);
-                    } else if (field.getType().equals(ListStyle.class)) {
-                        Array<StyleData> datas = main.getProjectData().getJsonData().getClassStyleMap().get(List.class);
-
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                ListStyle style = createPreviewStyle(ListStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(ScrollPaneStyle.class)) {
-                        Array<StyleData> datas = main.getProjectData().getJsonData().getClassStyleMap().get(ScrollPane.class);
+            return StyleBinder.get(clazz).bind(styleData, previewResolver);
+        } catch (ReflectionException e) {
+            Gdx.app.error(getClass().getName(), "Error while creating preview style.", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Returns the preview style for a style referenced by another style, such
+     * as the ListStyle of a SelectBoxStyle. These are kept until their
+     * StyleData or the project resources change.
+     */
+    private <T> T getNestedPreviewStyle(Class<T> clazz, String name) {
+        int index = 0;
+        while (index < Main.STYLE_CLASSES.length && !Main.STYLE_CLASSES[index].equals(clazz)) {
+            index++;
+        }
+        if (index == Main.STYLE_CLASSES.length) {
+            return null;
+        }
+        
+        for (StyleData data : main.getJsonData().getClassStyleMap().get(Main.BASIC_CLASSES[index])) {
+            if (name.equals(data.name)) {
+                int hash = styleHash(data);
+                NestedStyle nestedStyle = nestedStyles.get(data);
+                if (nestedStyle == null || nestedStyle.hash != hash) {
+                    nestedStyle = new NestedStyle();
+                    nestedStyle.hash = hash;
+                    nestedStyle.style = createPreviewStyle(clazz, data);
+                    nestedStyles.put(data, nestedStyle);
+                }
+                return (T) nestedStyle.style;
+            }
+        }
+        return null;
+    }
+    
+    private static int styleHash(StyleData styleData) {
+        int hash = styleData.properties.size;
+        for (StyleProperty property : styleData.properties.values()) {
+            hash = 31 * hash + Objects.hashCode(property.value);
+        }
+        return hash;
+    }
+    
+    private static int resourceHash(Array<ColorData> colors, Array<FontData> fonts) {
+        int hash = colors.size;
+        for (ColorData color : colors) {
+            hash = 31 * hash + Objects.hashCode(color.getName());
+            hash = 31 * hash + System.identityHashCode(color.color);
+        }
+        for (FontData font : fonts) {
+            hash = 31 * hash + Objects.hashCode(font.getName());
+            hash = 31 * hash + Objects.hashCode(font.file);
+        }
+        return hash;
+    }
+    
+    private static class NestedStyle {
+        private int hash;
+        private Object style;
+    }
+    
+    private class PreviewResolver implements StyleBinder.Resolver {
+        @Override
+        public Drawable getDrawable(String name) {
+            return drawablePairs.get(name);
+        }
 
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                ScrollPaneStyle style = createPreviewStyle(ScrollPaneStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(LabelStyle.class)) {
-                        Array<StyleData> datas = main.getProjectData().getJsonData().getClassStyleMap().get(Label.class);
+        @Override
+        public Color getColor(String name) {
+            for (ColorData data : main.getJsonData().getColors()) {
+                if (name.equals(data.getName())) {
+                    return data.color;
+                }
+            }
+            return null;
+        }
 
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                LabelStyle style = createPreviewStyle(LabelStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    }
+        @Override
+        public BitmapFont getFont(String name) {
+            for (FontData data : main.getJsonData().getFonts()) {
+                if (name.equals(data.getName())) {
+                    return previewFonts.get(data);
                 }
             }
-        } finally {
-            return returnValue;
+            return null;
+        }
+
+        @Override
+        public <S> S getStyle(Class<S> styleClass, String name) {
+            return getNestedPreviewStyle(styleClass, name);
+        }
+    }
+    
+    /**
+     * Same as {@link #produceAtlas()}, but an out of date texture atlas is
+     * packed on a background thread. The preview shows a loading message until
+     * the drawables are ready.
+     */
+    public void produceAtlasInBackground() {
+        if (main.getAtlasData().atlasCurrent) {
+            produceAtlas();
+        } else {
+            main.getAtlasData().writeAtlasInBackground(() -> {
+                if (produceAtlas()) {
+                    refreshPreview();
+                }
+            });
         }
     }
     
@@ -2523,8 +3040,11 @@ public class RootTable extends Table {
      * @return 
      */
     public boolean produceAtlas() {
+        boolean pending = main.getAtlasData().isAtlasPending();
         try {
+            nestedStyles.clear();
             if (atlas != null) {
+                previewFonts.setAtlas(null);
                 atlas.dispose();
                 atlas = null;
             }
@@ -2534,6 +3054,7 @@ public class RootTable extends Table {
                 main.getProjectData().getAtlasData().atlasCurrent = true;
             }
             atlas = main.getProjectData().getAtlasData().getAtlas();
+            previewFonts.setAtlas(atlas);
 
             for (DrawableData data : main.getProjectData().getAtlasData().getDrawables()) {
                 String name = data.file.name();
@@ -2558,6 +3079,11 @@ public class RootTable extends Table {
                 
                 drawablePairs.put(data.name, drawable);
             }
+            
+            //the preview is showing a loading message
+            if (pending) {
+                refreshPreview();
+            }
             return true;
         } catch (Exception e) {
             Gdx.app.error(getClass().getName(), "Error while attempting to generate drawables.", e);
@@ -2715,7 +3241,7 @@ public class RootTable extends Table {
         REDO, SETTINGS, COLORS, FONTS, DRAWABLES, ABOUT, CLASS_SELECTED,
         NEW_CLASS, DUPLICATE_CLASS, DELETE_CLASS, RENAME_CLASS, STYLE_SELECTED,
         NEW_STYLE, DUPLICATE_STYLE, DELETE_STYLE, RENAME_STYLE, PREVIEW_PROPERTY,
-        WELCOME
+        WELCOME, GALLERY
     }
 
     public static class RootTableEvent extends Event {
@@ -2840,6 +3366,26 @@ public class RootTable extends Table {
 
         @Override
         public boolean keyDown(InputEvent event, int keycode) {
+            if (keycode == Input.Keys.F3) {
+                RenderMetrics renderMetrics = rootTable.main.getRenderMetrics();
+                if (Gdx.input.isKeyPressed(Input.Keys.CONTROL_LEFT) || Gdx.input.isKeyPressed(Input.Keys.CONTROL_RIGHT)) {
+                    //dump the rolling window of render metrics
+                    if (renderMetrics.getFrameCount() > 0) {
+                        FileHandle file = Gdx.files.local("metrics/render-metrics-" + System.currentTimeMillis() + ".csv");
+                        try {
+                            renderMetrics.writeCsv(file);
+                            rootTable.setStatusBarMessage("Render metrics written to " + file.path());
+                        } catch (GdxRuntimeException e) {
+                            Gdx.app.error(getClass().getName(), "Error while writing render metrics", e);
+                            rootTable.main.getDialogFactory().showDialogError("Metrics Error...", "Error while writing render metrics.\n\nOpen log?");
+                        }
+                    }
+                } else {
+                    renderMetrics.setOverlayVisible(!renderMetrics.isOverlayVisible());
+                }
+                return false;
+            }
+            
             if (Gdx.input.isKeyPressed(Input.Keys.CONTROL_LEFT) || Gdx.input.isKeyPressed(Input.Keys.CONTROL_RIGHT)) {
                 //trigger shortcuts only if no dialogs are open.
                 boolean listenForShortcuts = true;
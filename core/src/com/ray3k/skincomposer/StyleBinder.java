@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.Constructor;
+import com.badlogic.gdx.utils.reflect.Field;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.ray3k.skincomposer.data.StyleData;
+import com.ray3k.skincomposer.data.StyleProperty;
+
+/**
+ * Creates instances of a scene2d.ui style class from the properties of a
+ * StyleData. The constructor and fields of each style class are looked up
+ * through reflection once and reused for every preview refresh.
+ * 
+ * @author Raymond Buckley
+ * @param <T> the style class
+ */
+public class StyleBinder<T> {
+    private static final int DRAWABLE = 0;
+    private static final int COLOR = 1;
+    private static final int FONT = 2;
+    private static final int FLOAT = 3;
+    private static final int STYLE = 4;
+    private static final ObjectMap<Class, StyleBinder> binders = new ObjectMap<>();
+    private final Constructor constructor;
+    private final Binding[] bindings;
+    
+    /**
+     * Looks up the values that style properties refer to by name.
+     */
+    public static interface Resolver {
+        public Drawable getDrawable(String name);
+        
+        public Color getColor(String name);
+        
+        public BitmapFont getFont(String name);
+        
+        /**
+         * 
+         * @param <S>
+         * @param styleClass a nested style class such as ListStyle
+         * @param name
+         * @return the style of the given class with the given name
+         */
+        public <S> S getStyle(Class<S> styleClass, String name);
+    }
+    
+    public static <T> StyleBinder<T> get(Class<T> clazz) throws ReflectionException {
+        StyleBinder<T> binder = binders.get(clazz);
+        if (binder == null) {
+            binder = new StyleBinder<>(clazz);
+            binders.put(clazz, binder);
+        }
+        return binder;
+    }
+
+    private StyleBinder(Class<T> clazz) throws ReflectionException {
+        constructor = ClassReflection.getConstructor(clazz);
+        
+        Field[] fields = ClassReflection.getFields(clazz);
+        int count = 0;
+        Binding[] found = new Binding[fields.length];
+        for (Field field : fields) {
+            Class type = field.getType();
+            int kind;
+            if (type.equals(Drawable.class)) {
+                kind = DRAWABLE;
+            } else if (type.equals(Color.class)) {
+                kind = COLOR;
+            } else if (type.equals(BitmapFont.class)) {
+                kind = FONT;
+            } else if (type.equals(Float.TYPE)) {
+                kind = FLOAT;
+            } else if (isStyleClass(type)) {
+                kind = STYLE;
+            } else {
+                continue;
+            }
+            
+            Binding binding = new Binding();
+            binding.field = field;
+            binding.name = field.getName();
+            binding.kind = kind;
+            found[count++] = binding;
+        }
+        
+        bindings = new Binding[count];
+        System.arraycopy(found, 0, bindings, 0, count);
+    }
+    
+    /**
+     * 
+     * @param styleData
+     * @param resolver
+     * @return a new style instance with all set properties of styleData
+     * @throws ReflectionException 
+     */
+    public T bind(StyleData styleData, Resolver resolver) throws ReflectionException {
+        return apply(styleData, resolver, (T) constructor.newInstance());
+    }
+    
+    /**
+     * Overwrites every bound field of an existing style instance with the
+     * current properties of styleData. Fields of unset properties are cleared.
+     * @param styleData
+     * @param resolver
+     * @param style the style instance to update
+     * @return style
+     * @throws ReflectionException 
+     */
+    public T apply(StyleData styleData, Resolver resolver, T style) throws ReflectionException {
+        for (Binding binding : bindings) {
+            StyleProperty property = styleData.properties.get(binding.name);
+            
+            Object value = null;
+            if (property != null && property.value != null) {
+                switch (binding.kind) {
+                    case DRAWABLE:
+                        value = resolver.getDrawable((String) property.value);
+                        break;
+                    case COLOR:
+                        value = resolver.getColor((String) property.value);
+                        break;
+                    case FONT:
+                        value = resolver.getFont((String) property.value);
+                        break;
+                    case FLOAT:
+                        value = ((Number) property.value).floatValue();
+                        break;
+                    default:
+                        value = resolver.getStyle(binding.field.getType(), (String) property.value);
+                        break;
+                }
+            }
+            
+            if (value == null && binding.kind == FLOAT) {
+                value = 0.0f;
+            }
+            binding.field.set(style, value);
+        }
+        
+        return style;
+    }
+    
+    private static boolean isStyleClass(Class type) {
+        for (Class styleClass : Main.STYLE_CLASSES) {
+            if (styleClass.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static class Binding {
+        private Field field;
+        private String name;
+        private int kind;
+    }
+}
@@ -21,32 +21,76 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  ******************************************************************************/
-
 package com.ray3k.skincomposer;
 
 import com.badlogic.gdx.ApplicationLogger;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
-import java.io.PrintStream;
+import com.badlogic.gdx.utils.Disposable;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
-public class TextFileApplicationLogger implements ApplicationLogger {
+/**
+ * Writes log messages to temp/log.txt and the console. Messages are handed to
+ * a background thread through a lock-free ring buffer, so logging never waits
+ * for the disk unless the buffer is full. The writer thread keeps the file
+ * open and moves it to log.1.txt once it grows larger than MAX_FILE_SIZE.
+ * Pending messages are flushed on dispose and when the JVM shuts down.
+ */
+public class TextFileApplicationLogger implements ApplicationLogger, Disposable {
+    public static final int BUFFER_SIZE = 8192;
+    public static final long MAX_FILE_SIZE = 1024 * 1024;
+    private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(50);
     private final FileHandle log;
+    private final FileHandle rotatedLog;
+    private final AtomicReferenceArray<String> buffer;
+    private final int mask;
+    private final AtomicLong tail;
+    private volatile long head;
+    private volatile long flushed;
+    private volatile boolean running;
+    private volatile boolean waiting;
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+    private Writer writer;
+    private long fileSize;
 
     public TextFileApplicationLogger() {
         log = Gdx.files.local("temp/log.txt");
+        rotatedLog = Gdx.files.local("temp/log.1.txt");
+        buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        mask = BUFFER_SIZE - 1;
+        tail = new AtomicLong();
+        running = true;
+        
+        writerThread = new Thread(this::writeLoop, "Log Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        
+        shutdownHook = new Thread(this::dispose, "Log Shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
     
     @Override
     public void log(String tag, String message) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
+        enqueue("\n" + tag + ": " + message + "\n");
         
         System.out.println(tag + ": " + message);
     }
 
     @Override
     public void log(String tag, String message, Throwable exception) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
-        printException(exception);
+        enqueue("\n" + tag + ": " + message + "\n" + stackTrace(exception));
         
         System.out.println(tag + ": " + message);
         exception.printStackTrace(System.out);
@@ -54,15 +98,14 @@ public class TextFileApplicationLogger implements ApplicationLogger {
 
     @Override
     public void error(String tag, String message) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
+        enqueue("\n" + tag + ": " + message + "\n");
         
         System.err.println(tag + ": " + message);
     }
 
     @Override
     public void error(String tag, String message, Throwable exception) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
-        printException(exception);
+        enqueue("\n" + tag + ": " + message + "\n" + stackTrace(exception));
         
         System.err.println(tag + ": " + message);
         exception.printStackTrace(System.err);
@@ -70,23 +113,167 @@ public class TextFileApplicationLogger implements ApplicationLogger {
 
     @Override
     public void debug(String tag, String message) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
+        enqueue("\n" + tag + ": " + message + "\n");
         
         System.out.println(tag + ": " + message);
     }
 
     @Override
     public void debug(String tag, String message, Throwable exception) {
-        log.writeString("\n" + tag + ": " + message + "\n", true);
-        printException(exception);
+        enqueue("\n" + tag + ": " + message + "\n" + stackTrace(exception));
         
         System.out.println(tag + ": " + message);
         exception.printStackTrace(System.out);
     }
     
-    private void printException(Throwable exception) {
-        PrintStream printStream = new PrintStream(log.write(true));
-        exception.printStackTrace(printStream);
-        printStream.close();
+    /**
+     * Blocks until every message logged so far has been written to the file
+     * or the writer has stopped.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (flushed < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Flushes pending messages and stops the writer thread. Messages logged
+     * afterwards are only printed to the console.
+     */
+    @Override
+    public void dispose() {
+        if (running) {
+            flush();
+            running = false;
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
+            if (Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    //already shutting down
+                }
+            }
+        }
+    }
+    
+    private void enqueue(String text) {
+        if (!running) {
+            return;
+        }
+        
+        long sequence = tail.getAndIncrement();
+        
+        //wait for the writer if the buffer is full
+        while (sequence - head >= BUFFER_SIZE && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        
+        buffer.set((int) (sequence & mask), text);
+        if (waiting) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+    
+    private static String stackTrace(Throwable exception) {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        exception.printStackTrace(printWriter);
+        printWriter.flush();
+        return stringWriter.toString();
+    }
+    
+    private void writeLoop() {
+        long position = 0;
+        while (running || position < tail.get()) {
+            String text = buffer.get((int) (position & mask));
+            if (text != null) {
+                //the file may have been deleted along with the temp folder
+                if (position == flushed) {
+                    checkFile();
+                }
+                
+                buffer.set((int) (position & mask), null);
+                position++;
+                head = position;
+                write(text);
+            } else if (flushed < position) {
+                try {
+                    if (writer != null) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    closeWriter(e);
+                }
+                flushed = position;
+            } else if (running) {
+                waiting = true;
+                if (buffer.get((int) (position & mask)) == null) {
+                    LockSupport.parkNanos(this, IDLE_WAIT);
+                }
+                waiting = false;
+            } else {
+                //a message was claimed but not written yet
+                Thread.yield();
+            }
+        }
+        
+        closeWriter(null);
+        flushed = position;
+    }
+    
+    private void write(String text) {
+        try {
+            if (writer == null) {
+                open();
+            }
+            writer.write(text);
+            fileSize += text.length();
+            
+            if (fileSize > MAX_FILE_SIZE) {
+                writer.close();
+                writer = null;
+                rotatedLog.delete();
+                log.moveTo(rotatedLog);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeWriter(e);
+        }
+    }
+    
+    private void checkFile() {
+        if (writer != null && !log.exists()) {
+            closeWriter(null);
+        }
+    }
+    
+    private void open() throws IOException {
+        log.parent().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(log.file(), true), StandardCharsets.UTF_8));
+        fileSize = log.length();
+    }
+    
+    private void closeWriter(Exception exception) {
+        if (exception != null) {
+            System.err.println(getClass().getName() + ": Error while writing log file");
+            exception.printStackTrace(System.err);
+        }
+        
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                //nothing left to do
+            }
+            writer = null;
+        }
     }
 }
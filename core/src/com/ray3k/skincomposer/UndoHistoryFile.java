@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongArray;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only store for the undo history of a project, kept next to the
+ * project file. Entries are written as they are added and read back on demand,
+ * so only the entries around the current position need to stay in memory.
+ * A save record marks the history matching the project file on disk. Records
+ * written after the last save record are discarded when the file is opened.
+ * @author Raymond Buckley
+ */
+public class UndoHistoryFile implements Disposable {
+    private static final byte ENTRY = 1;
+    private static final byte BARRIER = 2;
+    private static final byte SAVE = 3;
+    private static final int COMPACT_THRESHOLD = 256;
+    private final FileHandle file;
+    private RandomAccessFile randomAccessFile;
+    private final LongArray offsets;
+    private int first;
+    private int length;
+    private int cursor;
+    private int records;
+
+    /**
+     * Opens or creates the history file and reads the state recorded by its
+     * last save record.
+     * @param file
+     * @throws IOException 
+     */
+    public UndoHistoryFile(FileHandle file) throws IOException {
+        this.file = file;
+        offsets = new LongArray();
+        cursor = -1;
+        
+        file.parent().mkdirs();
+        randomAccessFile = new RandomAccessFile(file.file(), "rw");
+        long savedEnd = read(Long.MAX_VALUE, false);
+        read(savedEnd, true);
+        randomAccessFile.setLength(savedEnd);
+    }
+    
+    /**
+     * Returns the history file that belongs to a project file.
+     * @param projectFile
+     * @return 
+     */
+    public static FileHandle forProject(FileHandle projectFile) {
+        return projectFile.sibling(projectFile.name() + ".undo");
+    }
+
+    public FileHandle getFile() {
+        return file;
+    }
+    
+    /**
+     * @return The index of the oldest entry at the last save.
+     */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+     * @return The number of entries at the last save.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return The index of the entry that was last performed at the last save
+     * or -1 if every entry was undone.
+     */
+    public int getCursor() {
+        return cursor;
+    }
+    
+    /**
+     * Returns true if the entry at the index can be read back from the file.
+     * Entries that could not be serialized are recorded as barriers.
+     * @param index
+     * @return 
+     */
+    public boolean isStored(int index) {
+        return index >= 0 && index < offsets.size && offsets.get(index) >= 0;
+    }
+    
+    /**
+     * Appends an entry. Entries at higher indexes are discarded.
+     * @param index
+     * @param json The serialized entry or null to record a barrier.
+     * @throws IOException 
+     */
+    public void putEntry(int index, String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        long position = randomAccessFile.length();
+        long offset;
+        if (json == null) {
+            output.writeByte(BARRIER);
+            output.writeInt(index);
+            offset = -1;
+        } else {
+            output.writeByte(ENTRY);
+            output.writeInt(index);
+            writeString(output, json);
+            offset = position + 5;
+        }
+        
+        randomAccessFile.seek(position);
+        randomAccessFile.write(bytes.toByteArray());
+        setOffset(index, offset);
+        records++;
+    }
+    
+    /**
+     * Reads the serialized entry at the index.
+     * @param index
+     * @return 
+     * @throws IOException 
+     */
+    public String readEntry(int index) throws IOException {
+        if (!isStored(index)) {
+            throw new IOException("No entry stored at index " + index);
+        }
+        
+        randomAccessFile.seek(offsets.get(index));
+        byte[] data = new byte[randomAccessFile.readInt()];
+        randomAccessFile.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Records the state of the history matching the saved project file. The
+     * file is rewritten without stale records once they outnumber the live
+     * entries.
+     * @param first The index of the oldest entry that can be undone.
+     * @param length The number of entries.
+     * @param cursor The index of the last performed entry.
+     * @throws IOException 
+     */
+    public void markSaved(int first, int length, int cursor) throws IOException {
+        this.first = first;
+        this.length = length;
+        this.cursor = cursor;
+        offsets.size = Math.min(offsets.size, length);
+        
+        if (records > 2 * (length - first) + COMPACT_THRESHOLD) {
+            compact();
+        } else {
+            randomAccessFile.seek(randomAccessFile.length());
+            randomAccessFile.write(saveRecord());
+        }
+    }
+    
+    /**
+     * Removes every record from the file.
+     * @throws IOException 
+     */
+    public void clear() throws IOException {
+        randomAccessFile.setLength(0);
+        offsets.clear();
+        first = 0;
+        length = 0;
+        cursor = -1;
+        records = 0;
+    }
+
+    @Override
+    public void dispose() {
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            //nothing left to do
+        }
+    }
+    
+    /**
+     * Reads records up to the limit.
+     * @param limit
+     * @param apply If true, entries and save records update the state of this
+     * history.
+     * @return The file position after the last complete save record.
+     * @throws IOException 
+     */
+    private long read(long limit, boolean apply) throws IOException {
+        long savedEnd = 0;
+        long position = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file.file())))) {
+            while (position < limit) {
+                byte op = input.readByte();
+                if (op == ENTRY) {
+                    int index = input.readInt();
+                    int size = input.readInt();
+                    if (input.skipBytes(size) < size) {
+                        break;
+                    }
+                    if (apply) {
+                        setOffset(index, position + 5);
+                        records++;
+                    }
+                    position += 9 + size;
+                } else if (op == BARRIER) {
+                    int index = input.readInt();
+                    if (apply) {
+                        setOffset(index, -1);
+                        records++;
+                    }
+                    position += 5;
+                } else if (op == SAVE) {
+                    int savedFirst = input.readInt();
+                    int savedLength = input.readInt();
+                    int savedCursor = input.readInt();
+                    if (apply) {
+                        first = savedFirst;
+                        length = savedLength;
+                        cursor = savedCursor;
+                        offsets.size = Math.min(offsets.size, length);
+                    }
+                    position += 13;
+                    savedEnd = position;
+                } else {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            //incomplete record at the end of the file
+        }
+        return savedEnd;
+    }
+    
+    private void compact() throws IOException {
+        FileHandle tempFile = file.sibling(file.name() + ".tmp");
+        LongArray newOffsets = new LongArray(length);
+        for (int i = 0; i < first; i++) {
+            newOffsets.add(-1);
+        }
+        
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile.file())))) {
+            for (int i = first; i < length; i++) {
+                if (isStored(i)) {
+                    String json = readEntry(i);
+                    newOffsets.add(output.size() + 5);
+                    output.writeByte(ENTRY);
+                    output.writeInt(i);
+                    writeString(output, json);
+                } else {
+                    newOffsets.add(-1);
+                    output.writeByte(BARRIER);
+                    output.writeInt(i);
+                }
+            }
+            output.write(saveRecord());
+        }
+        
+        randomAccessFile.close();
+        tempFile.moveTo(file);
+        randomAccessFile = new RandomAccessFile(file.file(), "rw");
+        offsets.clear();
+        offsets.addAll(newOffsets);
+        records = length - first;
+    }
+    
+    private byte[] saveRecord() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(SAVE);
+        output.writeInt(first);
+        output.writeInt(length);
+        output.writeInt(cursor);
+        return bytes.toByteArray();
+    }
+    
+    private void setOffset(int index, long offset) {
+        while (offsets.size < index) {
+            offsets.add(-1);
+        }
+        offsets.size = index;
+        offsets.add(offset);
+    }
+    
+    private static void writeString(DataOutputStream output, String json) throws IOException {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(data.length);
+        output.write(data);
+    }
+}
@@ -27,4 +27,24 @@ public interface Undoable {
     public void undo();
     public void redo();
     public String getUndoText();
+    
+    /**
+     * Estimates the memory retained by this undoable so that the undo history
+     * can be kept within its memory budget.
+     * @return The approximate size in bytes.
+     */
+    public default int getSize() {
+        return UndoableManager.BASE_SIZE;
+    }
+    
+    /**
+     * Offers the next undoable to this one so that continuous edits of the
+     * same property collapse into a single history entry.
+     * @param undoable The undoable that was just performed.
+     * @return true if this undoable now also covers the change made by
+     * undoable, which is then discarded.
+     */
+    public default boolean merge(Undoable undoable) {
+        return false;
+    }
 }
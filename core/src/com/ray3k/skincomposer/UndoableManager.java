@@ -23,35 +23,71 @@
  ******************************************************************************/
 package com.ray3k.skincomposer;
 
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.ray3k.skincomposer.data.AtlasData;
 import com.ray3k.skincomposer.data.ColorData;
 import com.ray3k.skincomposer.data.CustomClass;
 import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
 import com.ray3k.skincomposer.data.CustomStyle;
+import com.ray3k.skincomposer.data.EditJournal;
 import com.ray3k.skincomposer.data.FontData;
 import com.ray3k.skincomposer.data.JsonData;
 import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
+import java.io.IOException;
 import java.util.Iterator;
 
 public class UndoableManager {
-    private final Array<Undoable> undoables;
+    /**
+     * Consecutive undoables added within this many milliseconds of each other
+     * are offered to {@link Undoable#merge(Undoable)}.
+     */
+    public static final long COALESCE_TIME = 1000;
+    /**
+     * Approximate size of an undoable and the references it holds.
+     */
+    public static final int BASE_SIZE = 64;
+    private final IntMap<Undoable> undoables;
+    private final IntIntMap sizes;
+    private long historySize;
+    private long lastAddTime;
+    private CompoundUndoable transaction;
+    private int transactionDepth;
+    private int firstIndex;
+    private int length;
     private int undoIndex;
+    private UndoHistoryFile historyFile;
     private final Main main;
 
     public UndoableManager(Main main) {
-        undoables = new Array<>();
+        undoables = new IntMap<>();
+        sizes = new IntIntMap();
         undoIndex = -1;
         this.main = main;
     }
     
     public void clearUndoables() {
-        undoables.clear();
-        undoIndex = -1;
+        resetHistory();
+        
+        if (historyFile != null) {
+            try {
+                historyFile.clear();
+            } catch (IOException e) {
+                Gdx.app.error(getClass().getName(), "Error while clearing undo history file", e);
+                closeHistory();
+            }
+        }
         
         main.getRootTable().setUndoText("Undo");
         main.getRootTable().setRedoText("Redo");
@@ -61,68 +97,233 @@ public class UndoableManager {
         
     }
     
+    private void resetHistory() {
+        undoables.clear();
+        sizes.clear();
+        historySize = 0;
+        lastAddTime = 0;
+        transaction = null;
+        transactionDepth = 0;
+        firstIndex = 0;
+        length = 0;
+        undoIndex = -1;
+    }
+    
     public void undo() {
-        if (undoIndex >= 0 && undoIndex < undoables.size) {
-            main.getProjectData().setChangesSaved(false);
-            Undoable undoable = undoables.get(undoIndex);
-            undoable.undo();
-            undoIndex--;
-
-            if (undoIndex < 0) {
-                main.getRootTable().setUndoDisabled(true);
-                main.getRootTable().setUndoText("Undo");
-            } else {
-                main.getRootTable().setUndoText("Undo " + undoables.get(undoIndex).getUndoText());
+        if (undoIndex >= firstIndex && undoIndex < length) {
+            main.getProjectData().setChangesSaved(false, false);
+            lastAddTime = 0;
+            main.getRootTable().deferRefresh();
+            Undoable undoable = get(undoIndex);
+            if (undoable != null) {
+                undoable.undo();
+                journal(undoable, true);
+                undoIndex--;
             }
-
-            main.getRootTable().setRedoDisabled(false);
-            main.getRootTable().setRedoText("Redo " + undoable.getUndoText());
+            
+            updateUndoText();
         }
     }
     
     public void redo() {
-        if (undoIndex >= -1 && undoIndex < undoables.size) {
-            main.getProjectData().setChangesSaved(false);
-            if (undoIndex < undoables.size - 1) {
+        if (undoIndex >= firstIndex - 1 && undoIndex < length - 1) {
+            main.getProjectData().setChangesSaved(false, false);
+            lastAddTime = 0;
+            main.getRootTable().deferRefresh();
+            Undoable undoable = get(undoIndex + 1);
+            if (undoable != null) {
                 undoIndex++;
-                undoables.get(undoIndex).redo();
+                undoable.redo();
+                journal(undoable, false);
             }
-
-            if (undoIndex >= undoables.size - 1) {
-                main.getRootTable().setRedoDisabled(true);
-                main.getRootTable().setRedoText("Redo");
+            
+            updateUndoText();
+        }
+    }
+    
+    private void updateUndoText() {
+        Undoable undoable = undoIndex >= firstIndex ? get(undoIndex) : null;
+        if (undoable == null) {
+            main.getRootTable().setUndoDisabled(true);
+            main.getRootTable().setUndoText("Undo");
+        } else {
+            main.getRootTable().setUndoDisabled(false);
+            main.getRootTable().setUndoText("Undo " + undoable.getUndoText());
+        }
+        
+        Undoable redoable = undoIndex + 1 < length ? get(undoIndex + 1) : null;
+        if (redoable == null) {
+            main.getRootTable().setRedoDisabled(true);
+            main.getRootTable().setRedoText("Redo");
+        } else {
+            main.getRootTable().setRedoDisabled(false);
+            main.getRootTable().setRedoText("Redo " + redoable.getUndoText());
+        }
+    }
+    
+    /**
+     * Returns the entry at the index, reading it from the history file if it
+     * is not in memory. If the entry can't be restored, the history is cut
+     * at that entry.
+     * @param index
+     * @return The entry or null if it is not available.
+     */
+    private Undoable get(int index) {
+        Undoable undoable = undoables.get(index);
+        if (undoable == null && historyFile != null && historyFile.isStored(index)) {
+            try {
+                undoable = readUndoable(new JsonReader().parse(historyFile.readEntry(index)));
+            } catch (IOException | RuntimeException e) {
+                Gdx.app.error(getClass().getName(), "Error while reading undo history entry " + index, e);
+            }
+            
+            if (undoable != null) {
+                putResident(index, undoable);
+                trimHistory();
+            }
+        }
+        
+        if (undoable == null) {
+            if (index <= undoIndex) {
+                for (int i = firstIndex; i <= index; i++) {
+                    removeResident(i);
+                }
+                firstIndex = Math.max(firstIndex, index + 1);
             } else {
-                main.getRootTable().setRedoText("Redo " + undoables.get(undoIndex + 1).getUndoText());
+                for (int i = index; i < length; i++) {
+                    removeResident(i);
+                }
+                length = Math.min(length, index);
+            }
+        }
+        return undoable;
+    }
+    
+    private void putResident(int index, Undoable undoable) {
+        removeResident(index);
+        int size = undoable.getSize();
+        undoables.put(index, undoable);
+        sizes.put(index, size);
+        historySize += size;
+    }
+    
+    private void removeResident(int index) {
+        if (undoables.remove(index) != null) {
+            historySize -= sizes.remove(index, 0);
+        }
+    }
+    
+    private void writeEntry(int index, Undoable undoable) {
+        if (historyFile != null) {
+            try {
+                historyFile.putEntry(index, writeUndoable(undoable));
+            } catch (IOException e) {
+                Gdx.app.error(getClass().getName(), "Error while writing undo history file", e);
+                closeHistory();
             }
-
-            main.getRootTable().setUndoDisabled(false);
-            main.getRootTable().setUndoText("Undo " + undoables.get(undoIndex).getUndoText());
         }
     }
     
     public void addUndoable(Undoable undoable, boolean redoImmediately) {
-        main.getProjectData().setChangesSaved(false);
-        undoIndex++;
-        if (undoIndex <= undoables.size - 1) {
-            undoables.removeRange(undoIndex, undoables.size - 1);
+        main.getProjectData().setChangesSaved(false, false);
+        journal(undoable, false);
+        
+        if (redoImmediately) {
+            main.getRootTable().deferRefresh();
+        }
+        
+        if (transaction != null) {
+            if (redoImmediately) {
+                undoable.redo();
+            }
+            
+            if (transaction.undoables.size == 0 || !transaction.undoables.peek().merge(undoable)) {
+                transaction.undoables.add(undoable);
+            }
+            return;
+        }
+        
+        //continuous edits of the same property are folded into the last entry
+        Undoable last = undoables.get(undoIndex);
+        if (last != null && undoIndex == length - 1 && TimeUtils.timeSinceMillis(lastAddTime) < COALESCE_TIME && last.merge(undoable)) {
+            lastAddTime = TimeUtils.millis();
+            if (redoImmediately) {
+                undoable.redo();
+            }
+            
+            putResident(undoIndex, last);
+            writeEntry(undoIndex, last);
+            main.getRootTable().setUndoText("Undo " + last.getUndoText());
+            return;
         }
-        undoables.add(undoable);
         
         if (redoImmediately) {
             undoable.redo();
         }
         
+        push(undoable);
+        lastAddTime = TimeUtils.millis();
+    }
+    
+    private void push(Undoable undoable) {
+        undoIndex++;
+        for (int i = undoIndex; i < length; i++) {
+            removeResident(i);
+        }
+        length = undoIndex + 1;
+        putResident(undoIndex, undoable);
+        writeEntry(undoIndex, undoable);
+        
         main.getRootTable().setUndoDisabled(false);
         main.getRootTable().setRedoDisabled(true);
         main.getRootTable().setRedoText("Redo");
         main.getRootTable().setUndoText("Undo " + undoable.getUndoText());
         
-        if (undoables.size > main.getProjectData().getMaxUndos()) {
-            int offset = undoables.size - main.getProjectData().getMaxUndos();
+        trimHistory();
+    }
+    
+    /**
+     * Keeps the entries in memory within the memory budget. Entries stored in
+     * the history file are dropped from memory first, starting with the ones
+     * furthest from the current position. If that is not enough, the oldest
+     * entries that are still in memory are removed from the history together
+     * with the entries before them.
+     */
+    private void trimHistory() {
+        long budget = main.getProjectData().getUndoMemory() * 1024L;
+        while (historySize > budget) {
+            int victim = -1;
+            int distance = 1;
+            if (historyFile != null) {
+                for (IntMap.Keys keys = undoables.keys(); keys.hasNext;) {
+                    int index = keys.next();
+                    if (Math.abs(index - undoIndex) > distance && historyFile.isStored(index)) {
+                        victim = index;
+                        distance = Math.abs(index - undoIndex);
+                    }
+                }
+            }
+            
+            if (victim != -1) {
+                removeResident(victim);
+                continue;
+            }
             
-            undoIndex -= offset;
-            undoIndex = MathUtils.clamp(undoIndex, -1, undoables.size - 1);
-            undoables.removeRange(0, offset - 1);
+            //drop the history up to the oldest entry that is still in memory
+            int oldest = -1;
+            for (IntMap.Keys keys = undoables.keys(); keys.hasNext;) {
+                int index = keys.next();
+                if (index < undoIndex && (oldest == -1 || index < oldest)) {
+                    oldest = index;
+                }
+            }
+            
+            if (oldest != -1) {
+                removeResident(oldest);
+                firstIndex = Math.max(firstIndex, oldest + 1);
+            } else {
+                break;
+            }
         }
     }
     
@@ -130,10 +331,535 @@ public class UndoableManager {
         addUndoable(undoable, false);
     }
     
+    /**
+     * Records a performed, undone or redone undoable in the edit journal.
+     * Undoables that can't be serialized make the journal write a checkpoint
+     * instead.
+     */
+    private void journal(Undoable undoable, boolean undone) {
+        EditJournal journal = main.getEditJournal();
+        if (journal != null) {
+            String json = writeUndoable(undoable);
+            if (json == null) {
+                journal.markDirty();
+            } else if (undone) {
+                journal.recordUndo(json);
+            } else {
+                journal.recordRedo(json);
+            }
+        }
+    }
+    
+    /**
+     * Starts grouping undoables into a single history entry. Every undoable
+     * added until the matching commitTransaction() is undone and redone as one
+     * step. Transactions may be nested; the entry is added to the history when
+     * the outermost transaction is committed.
+     * @param undoText The text shown for the grouped entry.
+     */
+    public void beginTransaction(String undoText) {
+        if (transactionDepth == 0) {
+            transaction = new CompoundUndoable(main, undoText);
+        }
+        transactionDepth++;
+    }
+    
+    /**
+     * Ends the current transaction. Empty transactions leave no entry and a
+     * transaction with a single undoable adds just that undoable.
+     */
+    public void commitTransaction() {
+        if (transactionDepth == 0) {
+            return;
+        }
+        
+        transactionDepth--;
+        if (transactionDepth == 0) {
+            CompoundUndoable compound = transaction;
+            transaction = null;
+            
+            if (compound.undoables.size > 0) {
+                push(compound.undoables.size == 1 ? compound.undoables.first() : compound);
+                lastAddTime = 0;
+            }
+        }
+    }
+    
+    public boolean isInTransaction() {
+        return transactionDepth > 0;
+    }
+    
+    /**
+     * Returns the estimated memory retained by the undo history.
+     * @return The size in bytes.
+     */
+    public long getHistorySize() {
+        return historySize;
+    }
+    
+    /**
+     * Replaces the history with the one stored next to the project file. The
+     * history is restored as it was when the project was last saved. Entries
+     * that could not be stored split the history; only the part around the
+     * saved position is restored.
+     * @param projectFile 
+     */
+    public void openHistory(FileHandle projectFile) {
+        closeHistory();
+        resetHistory();
+        
+        try {
+            historyFile = new UndoHistoryFile(UndoHistoryFile.forProject(projectFile));
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while opening undo history file", e);
+            updateUndoText();
+            return;
+        }
+        
+        int cursor = historyFile.getCursor();
+        firstIndex = historyFile.getFirst();
+        length = historyFile.getLength();
+        for (int i = firstIndex; i <= cursor; i++) {
+            if (!historyFile.isStored(i)) {
+                firstIndex = i + 1;
+            }
+        }
+        for (int i = cursor + 1; i < length; i++) {
+            if (!historyFile.isStored(i)) {
+                length = i;
+                break;
+            }
+        }
+        undoIndex = cursor;
+        
+        updateUndoText();
+    }
+    
+    /**
+     * Stores the history next to the project file and marks it as matching
+     * the saved project. Saving to a new location copies the history there.
+     * @param projectFile 
+     */
+    public void saveHistory(FileHandle projectFile) {
+        FileHandle file = UndoHistoryFile.forProject(projectFile);
+        try {
+            if (historyFile == null || !historyFile.getFile().equals(file)) {
+                UndoHistoryFile newFile = new UndoHistoryFile(file);
+                newFile.clear();
+                for (int i = firstIndex; i < length; i++) {
+                    Undoable undoable = undoables.get(i);
+                    if (undoable != null) {
+                        newFile.putEntry(i, writeUndoable(undoable));
+                    } else if (historyFile != null && historyFile.isStored(i)) {
+                        newFile.putEntry(i, historyFile.readEntry(i));
+                    } else {
+                        newFile.putEntry(i, null);
+                    }
+                }
+                
+                if (historyFile != null) {
+                    historyFile.dispose();
+                }
+                historyFile = newFile;
+            }
+            
+            historyFile.markSaved(firstIndex, length, undoIndex);
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while writing undo history file", e);
+            closeHistory();
+        }
+    }
+    
+    /**
+     * Closes the history file. Entries that are only stored in the file are
+     * removed from the history.
+     */
+    public void closeHistory() {
+        if (historyFile != null) {
+            historyFile.dispose();
+            historyFile = null;
+            
+            //keep the entries in memory around the current position
+            for (int i = firstIndex; i <= undoIndex; i++) {
+                if (undoables.get(i) == null) {
+                    firstIndex = i + 1;
+                }
+            }
+            for (int i = undoIndex + 1; i < length; i++) {
+                if (undoables.get(i) == null) {
+                    for (int j = i; j < length; j++) {
+                        removeResident(j);
+                    }
+                    length = i;
+                    break;
+                }
+            }
+            IntArray stale = new IntArray();
+            for (IntMap.Keys keys = undoables.keys(); keys.hasNext;) {
+                int index = keys.next();
+                if (index < firstIndex) {
+                    stale.add(index);
+                }
+            }
+            for (int i = 0; i < stale.size; i++) {
+                removeResident(stale.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Estimates the memory retained by a property value.
+     * @param value A String, Double, Boolean or null.
+     * @return The approximate size in bytes.
+     */
+    public static int estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        } else {
+            return 16;
+        }
+    }
+    
+    public static int estimateSize(StyleData styleData) {
+        int size = BASE_SIZE + estimateSize(styleData.name);
+        for (StyleProperty property : styleData.properties.values()) {
+            size += BASE_SIZE + estimateSize(property.name) + estimateSize(property.value);
+        }
+        return size;
+    }
+    
+    public static int estimateSize(CustomProperty customProperty) {
+        return BASE_SIZE + estimateSize(customProperty.getName()) + estimateSize(customProperty.getValue());
+    }
+    
+    public static int estimateSize(CustomStyle customStyle) {
+        int size = BASE_SIZE + estimateSize(customStyle.getName());
+        for (CustomProperty property : customStyle.getProperties()) {
+            size += estimateSize(property);
+        }
+        return size;
+    }
+    
+    public static int estimateSize(CustomClass customClass) {
+        if (customClass == null) {
+            return 0;
+        }
+        
+        int size = BASE_SIZE + estimateSize(customClass.getDisplayName()) + estimateSize(customClass.getFullyQualifiedName());
+        size += estimateSize(customClass.getTemplateStyle());
+        for (CustomStyle style : customClass.getStyles()) {
+            size += estimateSize(style);
+        }
+        return size;
+    }
+    
+    /**
+     * Converts an undoable into the JSON stored in the undo history file.
+     * Properties and styles are referenced by name so that the undoable can
+     * be restored against the project in a later session.
+     * @param undoable
+     * @return The JSON or null if the undoable can't be stored.
+     */
+    public String writeUndoable(Undoable undoable) {
+        JsonValue value = toJson(undoable);
+        return value == null ? null : value.toJson(JsonWriter.OutputType.json);
+    }
+    
+    private JsonValue toJson(Undoable undoable) {
+        JsonValue value = new JsonValue(JsonValue.ValueType.object);
+        if (undoable instanceof DoubleUndoable) {
+            DoubleUndoable u = (DoubleUndoable) undoable;
+            value.addChild("type", new JsonValue("double"));
+            value.addChild("old", new JsonValue(u.oldValue));
+            value.addChild("new", new JsonValue(u.newValue));
+            return writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof DrawableUndoable) {
+            DrawableUndoable u = (DrawableUndoable) undoable;
+            return writeValues(value, "drawable", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof ColorUndoable) {
+            ColorUndoable u = (ColorUndoable) undoable;
+            return writeValues(value, "color", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof FontUndoable) {
+            FontUndoable u = (FontUndoable) undoable;
+            return writeValues(value, "font", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof SelectBoxUndoable) {
+            SelectBoxUndoable u = (SelectBoxUndoable) undoable;
+            return writeValues(value, "selectBox", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomDoubleUndoable) {
+            CustomDoubleUndoable u = (CustomDoubleUndoable) undoable;
+            return writeValues(value, "customDouble", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomTextUndoable) {
+            CustomTextUndoable u = (CustomTextUndoable) undoable;
+            return writeValues(value, "customText", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomBoolUndoable) {
+            CustomBoolUndoable u = (CustomBoolUndoable) undoable;
+            return writeValues(value, "customBool", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomDrawableUndoable) {
+            CustomDrawableUndoable u = (CustomDrawableUndoable) undoable;
+            return writeValues(value, "customDrawable", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomColorUndoable) {
+            CustomColorUndoable u = (CustomColorUndoable) undoable;
+            return writeValues(value, "customColor", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof CustomFontUndoable) {
+            CustomFontUndoable u = (CustomFontUndoable) undoable;
+            return writeValues(value, "customFont", u.oldValue, u.newValue) && writeTarget(value, u.property) ? value : null;
+        } else if (undoable instanceof RenameStyleUndoable) {
+            RenameStyleUndoable u = (RenameStyleUndoable) undoable;
+            value.addChild("type", new JsonValue("renameStyle"));
+            value.addChild("class", new JsonValue(u.styleData.clazz.getName()));
+            value.addChild("old", new JsonValue(u.oldName));
+            value.addChild("new", new JsonValue(u.newName));
+            return value;
+        } else if (undoable instanceof CompoundUndoable) {
+            CompoundUndoable u = (CompoundUndoable) undoable;
+            value.addChild("type", new JsonValue("compound"));
+            value.addChild("text", new JsonValue(u.undoText));
+            JsonValue children = new JsonValue(JsonValue.ValueType.array);
+            for (Undoable child : u.undoables) {
+                JsonValue childValue = toJson(child);
+                if (childValue == null) {
+                    return null;
+                }
+                children.addChild(childValue);
+            }
+            value.addChild("undoables", children);
+            return value;
+        } else {
+            return null;
+        }
+    }
+    
+    private static boolean writeValues(JsonValue value, String type, Object oldValue, Object newValue) {
+        JsonValue oldJson = valueToJson(oldValue);
+        JsonValue newJson = valueToJson(newValue);
+        if (oldJson == null || newJson == null) {
+            return false;
+        }
+        
+        value.addChild("type", new JsonValue(type));
+        value.addChild("old", oldJson);
+        value.addChild("new", newJson);
+        return true;
+    }
+    
+    private static JsonValue valueToJson(Object value) {
+        if (value == null) {
+            return new JsonValue(JsonValue.ValueType.nullValue);
+        } else if (value instanceof String) {
+            return new JsonValue((String) value);
+        } else if (value instanceof Double) {
+            return new JsonValue((double) value);
+        } else if (value instanceof Boolean) {
+            return new JsonValue((boolean) value);
+        } else {
+            return null;
+        }
+    }
+    
+    private static Object jsonToValue(JsonValue value) {
+        if (value.isNull()) {
+            return null;
+        } else if (value.isString()) {
+            return value.asString();
+        } else if (value.isBoolean()) {
+            return value.asBoolean();
+        } else {
+            return value.asDouble();
+        }
+    }
+    
+    private boolean writeTarget(JsonValue value, StyleProperty property) {
+        //the edited property almost always belongs to the selected style
+        int classIndex = main.getRootTable().getClassSelectBox().getSelectedIndex();
+        int styleIndex = main.getRootTable().getStyleSelectBox().getSelectedIndex();
+        StyleData selected = classIndex >= 0 && classIndex < Main.BASIC_CLASSES.length && styleIndex >= 0 ? main.getRootTable().getSelectedStyle() : null;
+        if (selected != null && selected.properties.get(property.name) == property) {
+            value.addChild("class", new JsonValue(selected.clazz.getName()));
+            value.addChild("style", new JsonValue(selected.name));
+            value.addChild("property", new JsonValue(property.name));
+            return true;
+        }
+        
+        for (Array<StyleData> styles : main.getJsonData().getClassStyleMap().values()) {
+            for (StyleData style : styles) {
+                if (style.properties.get(property.name) == property) {
+                    value.addChild("class", new JsonValue(style.clazz.getName()));
+                    value.addChild("style", new JsonValue(style.name));
+                    value.addChild("property", new JsonValue(property.name));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static boolean writeTarget(JsonValue value, CustomProperty property) {
+        CustomStyle style = property.getParentStyle();
+        if (style == null || style.getParentClass() == null) {
+            return false;
+        }
+        
+        value.addChild("customClass", new JsonValue(style.getParentClass().getDisplayName()));
+        value.addChild("style", new JsonValue(style.getName()));
+        value.addChild("property", new JsonValue(property.getName()));
+        return true;
+    }
+    
+    /**
+     * Restores an undoable from the JSON stored in the undo history file.
+     * @param value
+     * @return The undoable or null if its style or property no longer exists.
+     */
+    public Undoable readUndoable(JsonValue value) {
+        String type = value.getString("type");
+        switch (type) {
+            case "compound":
+                CompoundUndoable compound = new CompoundUndoable(main, value.getString("text"));
+                for (JsonValue child : value.get("undoables")) {
+                    Undoable undoable = readUndoable(child);
+                    if (undoable == null) {
+                        return null;
+                    }
+                    compound.undoables.add(undoable);
+                }
+                return compound;
+            case "renameStyle":
+                String newName = value.getString("new");
+                String oldName = value.getString("old");
+                StyleData styleData = readStyle(value.getString("class"), newName);
+                if (styleData == null) {
+                    styleData = readStyle(value.getString("class"), oldName);
+                }
+                return styleData == null ? null : new RenameStyleUndoable(styleData, main, oldName, newName);
+        }
+        
+        Object oldValue = jsonToValue(value.get("old"));
+        Object newValue = jsonToValue(value.get("new"));
+        if (value.has("customClass")) {
+            CustomProperty property = readCustomProperty(value);
+            if (property == null) {
+                return null;
+            }
+            
+            switch (type) {
+                case "customDouble":
+                    return new CustomDoubleUndoable(main, property, oldValue, newValue);
+                case "customText":
+                    return new CustomTextUndoable(main, property, oldValue, newValue);
+                case "customBool":
+                    return new CustomBoolUndoable(main, property, oldValue, newValue);
+                case "customDrawable":
+                    return new CustomDrawableUndoable(main, property, (String) oldValue, (String) newValue);
+                case "customColor":
+                    return new CustomColorUndoable(main, property, oldValue, newValue);
+                case "customFont":
+                    return new CustomFontUndoable(main, property, oldValue, newValue);
+                default:
+                    return null;
+            }
+        } else {
+            StyleData style = readStyle(value.getString("class"), value.getString("style"));
+            StyleProperty property = style == null ? null : style.properties.get(value.getString("property"));
+            if (property == null) {
+                return null;
+            }
+            
+            switch (type) {
+                case "double":
+                    return new DoubleUndoable(main, property, (double) oldValue, (double) newValue);
+                case "drawable":
+                    return new DrawableUndoable(main.getRootTable(), main.getAtlasData(), property, oldValue, newValue);
+                case "color":
+                    return new ColorUndoable(main.getRootTable(), main.getJsonData(), property, oldValue, newValue);
+                case "font":
+                    return new FontUndoable(main.getRootTable(), main.getJsonData(), property, oldValue, newValue);
+                case "selectBox":
+                    return new SelectBoxUndoable(main.getRootTable(), property, (String) oldValue, (String) newValue);
+                default:
+                    return null;
+            }
+        }
+    }
+    
+    private StyleData readStyle(String className, String styleName) {
+        for (Class clazz : main.getJsonData().getClassStyleMap().keys()) {
+            if (clazz.getName().equals(className)) {
+                for (StyleData style : main.getJsonData().getClassStyleMap().get(clazz)) {
+                    if (style.name.equals(styleName)) {
+                        return style;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    private CustomProperty readCustomProperty(JsonValue value) {
+        String styleName = value.getString("style");
+        for (CustomClass customClass : main.getJsonData().getCustomClasses()) {
+            if (customClass.getDisplayName().equals(value.getString("customClass"))) {
+                CustomStyle style = customClass.getStyle(styleName);
+                if (style == null && customClass.getTemplateStyle().getName().equals(styleName)) {
+                    style = customClass.getTemplateStyle();
+                }
+                return style == null ? null : style.getProperty(value.getString("property"));
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * A group of undoables recorded in a transaction. They are undone in
+     * reverse order and redone in order.
+     */
+    public static class CompoundUndoable implements Undoable {
+        private final Array<Undoable> undoables;
+        private final String undoText;
+        private final Main main;
+
+        public CompoundUndoable(Main main, String undoText) {
+            undoables = new Array<>();
+            this.undoText = undoText;
+            this.main = main;
+        }
+        
+        @Override
+        public void undo() {
+            main.getRootTable().deferRefresh();
+            for (int i = undoables.size - 1; i >= 0; i--) {
+                undoables.get(i).undo();
+            }
+        }
+
+        @Override
+        public void redo() {
+            main.getRootTable().deferRefresh();
+            for (Undoable undoable : undoables) {
+                undoable.redo();
+            }
+        }
+
+        @Override
+        public int getSize() {
+            int size = BASE_SIZE;
+            for (Undoable undoable : undoables) {
+                size += undoable.getSize();
+            }
+            return size;
+        }
+
+        @Override
+        public String getUndoText() {
+            return undoText;
+        }
+    }
+    
     public static class DoubleUndoable implements Undoable {
         private final StyleProperty property;
         private final double oldValue;
-        private final double newValue;
+        private double newValue;
         private final Main main;
 
         public DoubleUndoable(Main main, StyleProperty property, double newValue) {
@@ -145,18 +871,34 @@ public class UndoableManager {
             property.value = newValue;
         }
         
+        private DoubleUndoable(Main main, StyleProperty property, double oldValue, double newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             property.value = oldValue;
             main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRootTable().refreshPreviewStyle();
         }
 
         @Override
         public void redo() {
             property.value = newValue;
             main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRootTable().refreshPreviewStyle();
+        }
+
+        @Override
+        public boolean merge(Undoable undoable) {
+            if (undoable instanceof DoubleUndoable && ((DoubleUndoable) undoable).property == property) {
+                newValue = ((DoubleUndoable) undoable).newValue;
+                return true;
+            }
+            return false;
         }
 
         @Override
@@ -168,7 +910,7 @@ public class UndoableManager {
     public static class CustomDoubleUndoable implements Undoable {
         private final CustomProperty property;
         private final Object oldValue;
-        private final Object newValue;
+        private Object newValue;
         private final Main main;
 
         public CustomDoubleUndoable(Main main, CustomProperty property, double newValue) {
@@ -181,6 +923,13 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
         
+        private CustomDoubleUndoable(Main main, CustomProperty property, Object oldValue, Object newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             property.setValue(oldValue);
@@ -195,6 +944,15 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public boolean merge(Undoable undoable) {
+            if (undoable instanceof CustomDoubleUndoable && ((CustomDoubleUndoable) undoable).property == property) {
+                newValue = ((CustomDoubleUndoable) undoable).newValue;
+                return true;
+            }
+            return false;
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.getName();
@@ -204,7 +962,7 @@ public class UndoableManager {
     public static class CustomTextUndoable implements Undoable {
         private final CustomProperty property;
         private final Object oldValue;
-        private final Object newValue;
+        private Object newValue;
         private final Main main;
 
         public CustomTextUndoable(Main main, CustomProperty property, String newValue) {
@@ -217,6 +975,13 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
         
+        private CustomTextUndoable(Main main, CustomProperty property, Object oldValue, Object newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             property.setValue(oldValue);
@@ -231,6 +996,20 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public boolean merge(Undoable undoable) {
+            if (undoable instanceof CustomTextUndoable && ((CustomTextUndoable) undoable).property == property) {
+                newValue = ((CustomTextUndoable) undoable).newValue;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.getName();
@@ -253,6 +1032,13 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
         
+        private CustomBoolUndoable(Main main, CustomProperty property, Object oldValue, Object newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             property.setValue(oldValue);
@@ -295,7 +1081,7 @@ public class UndoableManager {
             }
             rootTable.setStatusBarMessage("Drawable selected: " + oldValue);
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
         }
 
         @Override
@@ -306,7 +1092,12 @@ public class UndoableManager {
             }
             rootTable.setStatusBarMessage("Drawable selected: " + newValue);
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
+        }
+
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
         }
 
         @Override
@@ -328,6 +1119,13 @@ public class UndoableManager {
             this.main = main;
         }
 
+        private CustomDrawableUndoable(Main main, CustomProperty property, String oldValue, String newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+
         @Override
         public void undo() {
             main.getRootTable().produceAtlas();
@@ -350,6 +1148,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.getName();
@@ -385,7 +1188,7 @@ public class UndoableManager {
             }
             rootTable.setStatusBarMessage("Selected color: " + oldValue);
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
         }
 
         @Override
@@ -402,7 +1205,21 @@ public class UndoableManager {
             }
             rootTable.setStatusBarMessage("Selected color: " + newValue);
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
+        }
+
+        @Override
+        public boolean merge(Undoable undoable) {
+            if (undoable instanceof ColorUndoable && ((ColorUndoable) undoable).property == property) {
+                newValue = ((ColorUndoable) undoable).newValue;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
         }
 
         @Override
@@ -413,7 +1230,8 @@ public class UndoableManager {
     
     public static class CustomColorUndoable implements Undoable {
         private final CustomProperty property;
-        private final Object oldValue, newValue;
+        private final Object oldValue;
+        private Object newValue;
         private final Main main;
 
         public CustomColorUndoable(Main main, CustomProperty property, Object newValue) {
@@ -423,6 +1241,13 @@ public class UndoableManager {
             this.main = main;
         }
         
+        private CustomColorUndoable(Main main, CustomProperty property, Object oldValue, Object newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             if (oldValue == null) {
@@ -457,6 +1282,20 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public boolean merge(Undoable undoable) {
+            if (undoable instanceof CustomColorUndoable && ((CustomColorUndoable) undoable).property == property) {
+                newValue = ((CustomColorUndoable) undoable).newValue;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.getName();
@@ -511,6 +1350,11 @@ public class UndoableManager {
             rootTable.refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.name;
@@ -529,6 +1373,13 @@ public class UndoableManager {
             this.main = main;
         }
     
+        private CustomFontUndoable(Main main, CustomProperty property, Object oldValue, Object newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.main = main;
+        }
+        
         @Override
         public void undo() {
             if (oldValue == null) {
@@ -563,6 +1414,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
+        }
+
         @Override
         public String getUndoText() {
             return "Change Style Property " + property.getName();
@@ -584,18 +1440,30 @@ public class UndoableManager {
             this.rootTable = rootTable;
         }
 
+        public SelectBoxUndoable(RootTable rootTable, StyleProperty property, String oldValue, String newValue) {
+            this.property = property;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.rootTable = rootTable;
+        }
+
         @Override
         public void undo() {
             property.value = oldValue;
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
         }
 
         @Override
         public void redo() {
             property.value = newValue;
             rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.refreshPreviewStyle();
+        }
+
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(oldValue) + estimateSize(newValue);
         }
 
         @Override
@@ -658,6 +1526,11 @@ public class UndoableManager {
             main.getRootTable().refreshStyles(true);
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(styleData);
+        }
+
         @Override
         public String getUndoText() {
             return "Duplicate Style \"" + styleData.name + "\"";
@@ -685,6 +1558,11 @@ public class UndoableManager {
             main.getRootTable().refreshStyles(true);
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(styleData);
+        }
+
         @Override
         public String getUndoText() {
             return "Delete Style \"" + styleData.name + "\"";
@@ -705,6 +1583,13 @@ public class UndoableManager {
             newName = name;
         }
         
+        private RenameStyleUndoable(StyleData styleData, Main main, String oldName, String newName) {
+            this.styleData = styleData;
+            this.main = main;
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+        
         @Override
         public void undo() {
             styleData.name = oldName;
@@ -774,6 +1659,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customClass);
+        }
+
         @Override
         public String getUndoText() {
             return "New Class " + displayName;
@@ -843,6 +1733,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customClass);
+        }
+
         @Override
         public String getUndoText() {
             return "Delete class " + customClass.getDisplayName();
@@ -880,6 +1775,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customClass);
+        }
+
         @Override
         public String getUndoText() {
             return "Duplicate class " + customClass.getDisplayName();
@@ -932,6 +1832,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customProperty) * (customClass.getStyles().size + 1);
+        }
+
         @Override
         public String getUndoText() {
             return "New Property " + customProperty.getName();
@@ -984,6 +1889,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customProperty) * (customClass.getStyles().size + 1);
+        }
+
         @Override
         public String getUndoText() {
             return "Duplicate Property " + customProperty.getName();
@@ -1099,6 +2009,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(customProperty) * (customClass.getStyles().size + 1);
+        }
+
         @Override
         public String getUndoText() {
             return "Delete Property " + customProperty.getName();
@@ -1133,6 +2048,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(style);
+        }
+
         @Override
         public String getUndoText() {
             return "New style " + style.getName();
@@ -1166,6 +2086,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(style);
+        }
+
         @Override
         public String getUndoText() {
             return "Duplicate style " + style.getName();
@@ -1197,6 +2122,11 @@ public class UndoableManager {
             main.getRootTable().refreshPreview();
         }
 
+        @Override
+        public int getSize() {
+            return BASE_SIZE + estimateSize(style);
+        }
+
         @Override
         public String getUndoText() {
             return "Delete style " + style.getName();
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
+import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Lays out items in fixed size cells and only keeps cells for the rows that
+ * are visible in the parent ScrollPane. Cells that scroll out of view are kept
+ * and bound to other items. Subclasses create the cells and bind them to the
+ * items.
+ * @param <T> the type of the cells
+ */
+public abstract class VirtualGrid<T extends Actor> extends WidgetGroup {
+    private final IntMap<T> cells;
+    private final Array<T> freeCells;
+    private final float space;
+    private float cellWidth;
+    private float cellHeight;
+    private int columns;
+    private int firstVisible;
+    private int lastVisible;
+    private float layoutWidth;
+    private float layoutHeight;
+
+    public VirtualGrid(float space) {
+        this.space = space;
+        cells = new IntMap<>();
+        freeCells = new Array<>();
+        columns = 1;
+        firstVisible = -1;
+        lastVisible = -1;
+    }
+    
+    /**
+     * @return the number of items shown in the grid
+     */
+    public abstract int getItemCount();
+    
+    /**
+     * Creates a cell that is not bound to any item yet.
+     * @return 
+     */
+    protected abstract T newCell();
+    
+    /**
+     * Shows the item at index in cell. The cell may have shown another item
+     * before.
+     * @param cell
+     * @param index 
+     */
+    protected abstract void bindCell(T cell, int index);
+    
+    /**
+     * @return false if the cells can't be bound at the moment
+     */
+    protected boolean isReady() {
+        return true;
+    }
+    
+    /**
+     * Sets the size of every cell. The visible cells are rebound.
+     * @param cellWidth
+     * @param cellHeight 
+     */
+    public void setCellSize(float cellWidth, float cellHeight) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        refresh();
+    }
+    
+    /**
+     * Rebinds the visible cells after the items changed.
+     */
+    public void refresh() {
+        freeCells();
+        invalidateHierarchy();
+    }
+    
+    /**
+     * Removes the visible cells and discards them instead of reusing them.
+     * Call this when the existing cells can't show the items anymore.
+     */
+    public void clearCells() {
+        freeCells();
+        freeCells.clear();
+        invalidateHierarchy();
+    }
+
+    @Override
+    public float getPrefWidth() {
+        return cellWidth;
+    }
+
+    @Override
+    public float getPrefHeight() {
+        int rows = (getItemCount() + columns - 1) / columns;
+        return Math.max(0.0f, rows * (cellHeight + space) - space);
+    }
+
+    @Override
+    public void layout() {
+        int newColumns = Math.max(1, (int) ((getWidth() + space) / (cellWidth + space)));
+        if (newColumns != columns) {
+            columns = newColumns;
+            freeCells();
+            invalidateHierarchy();
+        } else if (getWidth() != layoutWidth || getHeight() != layoutHeight) {
+            freeCells();
+        }
+        layoutWidth = getWidth();
+        layoutHeight = getHeight();
+    }
+
+    @Override
+    protected void childrenChanged() {
+        //cells are positioned manually, adding them doesn't require layout
+    }
+
+    @Override
+    public void act(float delta) {
+        updateCells();
+        super.act(delta);
+    }
+    
+    private void freeCells() {
+        for (T cell : cells.values()) {
+            cell.remove();
+            freeCells.add(cell);
+        }
+        cells.clear();
+        firstVisible = -1;
+        lastVisible = -1;
+    }
+    
+    private void updateCells() {
+        int itemCount = getItemCount();
+        if (!(getParent() instanceof ScrollPane) || itemCount == 0 || cellHeight <= 0.0f || !isReady()) {
+            return;
+        }
+        
+        ScrollPane scrollPane = (ScrollPane) getParent();
+        float rowHeight = cellHeight + space;
+        float top = scrollPane.getVisualScrollY();
+        int firstRow = Math.max(0, (int) (top / rowHeight));
+        int lastRow = (int) ((top + scrollPane.getHeight()) / rowHeight);
+        int first = firstRow * columns;
+        int last = Math.min(itemCount - 1, (lastRow + 1) * columns - 1);
+        if (first == firstVisible && last == lastVisible) {
+            return;
+        }
+        
+        IntMap.Keys keys = cells.keys();
+        while (keys.hasNext) {
+            int index = keys.next();
+            if (index < first || index > last) {
+                T cell = cells.get(index);
+                cell.remove();
+                freeCells.add(cell);
+                keys.remove();
+            }
+        }
+        
+        //rows are left aligned, the grid is centered
+        float left = (getWidth() - (columns * cellWidth + (columns - 1) * space)) / 2.0f;
+        for (int i = first; i <= last; i++) {
+            if (!cells.containsKey(i)) {
+                T cell = freeCells.size > 0 ? freeCells.pop() : newCell();
+                bindCell(cell, i);
+                int column = i % columns;
+                int row = i / columns;
+                cell.setBounds(left + column * (cellWidth + space), getHeight() - row * rowHeight - cellHeight, cellWidth, cellHeight);
+                addActor(cell);
+                cells.put(i, cell);
+            }
+        }
+        
+        firstVisible = first;
+        lastVisible = last;
+    }
+}
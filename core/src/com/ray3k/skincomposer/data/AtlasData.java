@@ -32,8 +32,11 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
 import com.ray3k.skincomposer.Main;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -43,6 +46,9 @@ public class AtlasData implements Json.Serializable {
     public boolean atlasCurrent = false;
     private Array<DrawableData> drawables;
     private Main main;
+    private static AsyncExecutor executor;
+    private AsyncResult<Void> pendingAtlas;
+    private Array<FileHandle> pendingFiles;
     
     public AtlasData() {
         drawables = new Array<>();
@@ -149,7 +155,9 @@ public class AtlasData implements Json.Serializable {
                     }
                 }
                 FileHandle outputFile = targetDirectory.child(name);
-                PixmapIO.writePNG(outputFile, savePixmap);
+                FileHandle tempFile = outputFile.sibling(outputFile.name() + ".tmp");
+                PixmapIO.writePNG(tempFile, savePixmap);
+                main.getResourceStore().replace(tempFile, outputFile);
                 DrawableData drawable = new DrawableData(outputFile);
                 
                 //delete drawables with the same name
@@ -169,7 +177,91 @@ public class AtlasData implements Json.Serializable {
     }
     
     public void writeAtlas() throws Exception {
+        if (awaitAtlas()) {
+            return;
+        }
+        packAtlas(getAtlasFiles(), main.getProjectData().getSaveFile(), Gdx.files.local("temp/" + main.getProjectData().getId() + ".atlas"));
+    }
+    
+    /**
+     * Packs the texture atlas on a background thread. Must be called on the GL
+     * thread. If the drawables have not changed by the time packing is done,
+     * atlasCurrent is set and onComplete is run on the GL thread.
+     * @param onComplete
+     */
+    public void writeAtlasInBackground(Runnable onComplete) {
+        awaitAtlas();
+        
+        Array<FileHandle> files = getAtlasFiles();
+        FileHandle saveFile = main.getProjectData().getSaveFile();
         FileHandle targetFile = Gdx.files.local("temp/" + main.getProjectData().getId() + ".atlas");
+        
+        if (executor == null) {
+            executor = new AsyncExecutor(1);
+        }
+        
+        AsyncResult<Void> job = executor.submit(() -> {
+            packAtlas(files, saveFile, targetFile);
+            return null;
+        });
+        pendingAtlas = job;
+        pendingFiles = files;
+        
+        executor.submit(() -> {
+            //runs after packing on the single worker thread
+            Gdx.app.postRunnable(() -> {
+                if (pendingAtlas == job) {
+                    if (awaitAtlas()) {
+                        onComplete.run();
+                    }
+                }
+            });
+            Gdx.graphics.requestRendering();
+            return null;
+        });
+    }
+    
+    /**
+     * Blocks until a background atlas job is finished.
+     * @return true if the job completed and the atlas is up to date.
+     */
+    public boolean awaitAtlas() {
+        if (pendingAtlas == null) {
+            return false;
+        }
+        
+        boolean success;
+        try {
+            pendingAtlas.get();
+            success = pendingFiles.equals(getAtlasFiles());
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(getClass().getName(), "Error while packing texture atlas in background", e);
+            success = false;
+        }
+        pendingAtlas = null;
+        pendingFiles = null;
+        
+        if (success) {
+            atlasCurrent = true;
+        }
+        return success;
+    }
+    
+    public boolean isAtlasPending() {
+        return pendingAtlas != null;
+    }
+    
+    private Array<FileHandle> getAtlasFiles() {
+        Array<FileHandle> files = new Array<>();
+        for (DrawableData drawable : drawables) {
+            if (!files.contains(drawable.file, false)) {
+                files.add(drawable.file);
+            }
+        }
+        return files;
+    }
+    
+    private void packAtlas(Array<FileHandle> files, FileHandle saveFile, FileHandle targetFile) throws Exception {
         targetFile.parent().mkdirs();
         FileHandle[] oldFiles = targetFile.parent().list(new FilenameFilter() {
             @Override
@@ -182,14 +274,7 @@ public class AtlasData implements Json.Serializable {
         }
         targetFile.sibling(targetFile.nameWithoutExtension() + ".atlas").delete();
         
-        Array<FileHandle> files = new Array<>();
-        for (DrawableData drawable : drawables) {
-            if (!files.contains(drawable.file, false)) {
-                files.add(drawable.file);
-            }
-        }
-        
-        main.getDesktopWorker().texturePack(files, main.getProjectData().getSaveFile(), targetFile);
+        main.getDesktopWorker().texturePack(files, saveFile, targetFile);
     }
     
     public Array<String> writeAtlas(FileHandle targetFile) throws Exception {
@@ -240,6 +325,20 @@ public class AtlasData implements Json.Serializable {
         drawables.addAll(atlasData.drawables);
     }
 
+    /**
+     * Creates a deep copy of the drawable list. The copy is not attached to
+     * Main and is only meant to be serialized.
+     * @return 
+     */
+    public AtlasData copy() {
+        AtlasData returnValue = new AtlasData();
+        returnValue.atlasCurrent = atlasCurrent;
+        for (DrawableData drawable : drawables) {
+            returnValue.drawables.add(drawable.copy());
+        }
+        return returnValue;
+    }
+
     @Override
     public void write(Json json) {
         json.writeValue("atlasCurrent", atlasCurrent);
@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectMap.Entry;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary alternative to the JSON .scmp format. A file consists of a
+ * header, a string table, and a list of typed sections. Every section is
+ * prefixed with its length so that readers can skip sections they don't know.
+ * Strings are stored once in the table and referenced by index everywhere
+ * else. Since version 2 each string in the table is written as its UTF-8 byte
+ * length followed by the bytes, so strings are not limited to the 65535 bytes
+ * of modified UTF-8 that version 1 used.
+ * 
+ * @author Raymond Buckley
+ */
+public class BinaryProjectFormat {
+    private static final byte[] MAGIC = {'S', 'C', 'M', 'P', 0};
+    public static final int VERSION = 2;
+    
+    private static final byte SECTION_END = 0;
+    private static final byte SECTION_PREFERENCES = 1;
+    private static final byte SECTION_COLORS = 2;
+    private static final byte SECTION_FONTS = 3;
+    private static final byte SECTION_DRAWABLES = 4;
+    private static final byte SECTION_STYLES = 5;
+    private static final byte SECTION_CUSTOM_CLASSES = 6;
+    
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_DOUBLE = 2;
+    private static final byte VALUE_FLOAT = 3;
+    private static final byte VALUE_INTEGER = 4;
+    private static final byte VALUE_LONG = 5;
+    private static final byte VALUE_BOOLEAN = 6;
+    
+    private static final String FLOAT_TYPE = "float";
+    
+    /**
+     * Returns true if the file starts with the binary project header.
+     * @param file
+     * @return 
+     */
+    public static boolean isBinary(FileHandle file) {
+        if (!file.exists() || file.length() < MAGIC.length) {
+            return false;
+        }
+        
+        byte[] header = new byte[MAGIC.length];
+        try (InputStream stream = file.read()) {
+            int read = 0;
+            while (read < header.length) {
+                int count = stream.read(header, read, header.length - read);
+                if (count < 0) {
+                    return false;
+                }
+                read += count;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public static void write(ProjectData projectData, FileHandle file) throws IOException {
+        StringTable strings = new StringTable();
+        Array<byte[]> sections = new Array<>();
+        Array<Byte> sectionTypes = new Array<>();
+        
+        JsonData jsonData = projectData.getJsonData();
+        AtlasData atlasData = projectData.getAtlasData();
+        
+        SectionWriter section = new SectionWriter(strings);
+        writePreferences(section, projectData);
+        sectionTypes.add(SECTION_PREFERENCES);
+        sections.add(section.toByteArray());
+        
+        section = new SectionWriter(strings);
+        writeColors(section, jsonData.getColors());
+        sectionTypes.add(SECTION_COLORS);
+        sections.add(section.toByteArray());
+        
+        section = new SectionWriter(strings);
+        writeFonts(section, jsonData.getFonts());
+        sectionTypes.add(SECTION_FONTS);
+        sections.add(section.toByteArray());
+        
+        section = new SectionWriter(strings);
+        writeDrawables(section, atlasData);
+        sectionTypes.add(SECTION_DRAWABLES);
+        sections.add(section.toByteArray());
+        
+        section = new SectionWriter(strings);
+        writeStyles(section, jsonData.getClassStyleMap());
+        sectionTypes.add(SECTION_STYLES);
+        sections.add(section.toByteArray());
+        
+        section = new SectionWriter(strings);
+        writeCustomClasses(section, jsonData, atlasData);
+        sectionTypes.add(SECTION_CUSTOM_CLASSES);
+        sections.add(section.toByteArray());
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file.write(false), 8192))) {
+            out.write(MAGIC);
+            out.writeShort(VERSION);
+            
+            out.writeInt(strings.strings.size);
+            for (String string : strings.strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            
+            for (int i = 0; i < sections.size; i++) {
+                byte[] bytes = sections.get(i);
+                out.writeByte(sectionTypes.get(i));
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeByte(SECTION_END);
+        }
+    }
+    
+    /**
+     * Reads a binary project file into a new ProjectData instance. Like the
+     * JSON reader, the returned instance is not attached to Main.
+     * @param file
+     * @return
+     * @throws IOException 
+     */
+    public static ProjectData read(FileHandle file) throws IOException {
+        ProjectData projectData = new ProjectData();
+        JsonData jsonData = projectData.getJsonData();
+        AtlasData atlasData = projectData.getAtlasData();
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.read(), 8192))) {
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (in.readByte() != MAGIC[i]) {
+                    throw new IOException("Not a binary Skin Composer project: " + file.path());
+                }
+            }
+            
+            int version = in.readUnsignedShort();
+            if (version > VERSION) {
+                throw new IOException("Unsupported binary project version " + version + ": " + file.path());
+            }
+            
+            int stringCount = in.readInt();
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                if (version < 2) {
+                    strings[i] = in.readUTF();
+                } else {
+                    int length = in.readInt();
+                    if (length < 0) {
+                        throw new IOException("Invalid string length in binary project: " + file.path());
+                    }
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            
+            byte type;
+            while ((type = in.readByte()) != SECTION_END) {
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Invalid section length in binary project: " + file.path());
+                }
+                
+                //each section is read from its own slice so that fields
+                //appended by a newer version are skipped
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                SectionReader section = new SectionReader(new DataInputStream(new ByteArrayInputStream(bytes)), strings);
+                switch (type) {
+                    case SECTION_PREFERENCES:
+                        readPreferences(section, projectData);
+                        break;
+                    case SECTION_COLORS:
+                        readColors(section, jsonData.getColors());
+                        break;
+                    case SECTION_FONTS:
+                        readFonts(section, jsonData.getFonts());
+                        break;
+                    case SECTION_DRAWABLES:
+                        readDrawables(section, atlasData);
+                        break;
+                    case SECTION_STYLES:
+                        readStyles(section, jsonData);
+                        break;
+                    case SECTION_CUSTOM_CLASSES:
+                        readCustomClasses(section, jsonData.getCustomClasses());
+                        break;
+                    default:
+                        //section written by a newer version, skip it
+                        break;
+                }
+            }
+        }
+        
+        return projectData;
+    }
+    
+    private static void writePreferences(SectionWriter out, ProjectData projectData) throws IOException {
+        ObjectMap<String, Object> preferences = projectData.getPreferences();
+        out.writeInt(preferences.size);
+        for (Entry<String, Object> entry : preferences.entries()) {
+            out.writeString(entry.key);
+            out.writeValue(entry.value);
+        }
+        
+        FileHandle saveFile = projectData.getSaveFile();
+        out.writeString(saveFile == null ? null : saveFile.path());
+    }
+    
+    private static void readPreferences(SectionReader in, ProjectData projectData) throws IOException {
+        ObjectMap<String, Object> preferences = projectData.getPreferences();
+        preferences.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            preferences.put(key, in.readValue());
+        }
+        
+        String saveFile = in.readString();
+        projectData.setSaveFile(saveFile == null ? null : new FileHandle(saveFile));
+    }
+    
+    private static void writeColors(SectionWriter out, Array<ColorData> colors) throws IOException {
+        out.writeInt(colors.size);
+        for (ColorData color : colors) {
+            out.writeString(color.getName());
+            out.writeColor(color.color);
+        }
+    }
+    
+    private static void readColors(SectionReader in, Array<ColorData> colors) throws IOException {
+        colors.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String name = in.readString();
+            Color color = in.readColor();
+            try {
+                colors.add(new ColorData(name, color));
+            } catch (ColorData.NameFormatException e) {
+                throw new IOException("Invalid color name in binary project: " + name, e);
+            }
+        }
+    }
+    
+    private static void writeFonts(SectionWriter out, Array<FontData> fonts) throws IOException {
+        out.writeInt(fonts.size);
+        for (FontData font : fonts) {
+            out.writeString(font.getName());
+            out.writeString(font.file == null ? null : font.file.path());
+        }
+    }
+    
+    private static void readFonts(SectionReader in, Array<FontData> fonts) throws IOException {
+        fonts.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String name = in.readString();
+            String path = in.readString();
+            try {
+                fonts.add(new FontData(name, path == null ? null : new FileHandle(path)));
+            } catch (FontData.NameFormatException e) {
+                throw new IOException("Invalid font name in binary project: " + name, e);
+            }
+        }
+    }
+    
+    private static void writeDrawables(SectionWriter out, AtlasData atlasData) throws IOException {
+        out.writeBoolean(atlasData.atlasCurrent);
+        Array<DrawableData> drawables = atlasData.getDrawables();
+        out.writeInt(drawables.size);
+        for (DrawableData drawable : drawables) {
+            out.writeString(drawable.name);
+            out.writeString(drawable.file == null ? null : drawable.file.path());
+            out.writeColor(drawable.bgColor);
+            out.writeBoolean(drawable.visible);
+            out.writeColor(drawable.tint);
+            out.writeString(drawable.tintName);
+        }
+    }
+    
+    private static void readDrawables(SectionReader in, AtlasData atlasData) throws IOException {
+        atlasData.atlasCurrent = in.readBoolean();
+        Array<DrawableData> drawables = atlasData.getDrawables();
+        drawables.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            DrawableData drawable = new DrawableData();
+            drawable.name = in.readString();
+            String path = in.readString();
+            drawable.file = path == null ? null : new FileHandle(path);
+            drawable.bgColor = in.readColor();
+            drawable.visible = in.readBoolean();
+            drawable.tint = in.readColor();
+            drawable.tintName = in.readString();
+            drawables.add(drawable);
+        }
+    }
+    
+    private static void writeStyles(SectionWriter out, OrderedMap<Class, Array<StyleData>> classStyleMap) throws IOException {
+        out.writeInt(classStyleMap.size);
+        for (Entry<Class, Array<StyleData>> entry : classStyleMap.entries()) {
+            out.writeString(entry.key.getName());
+            out.writeInt(entry.value.size);
+            for (StyleData style : entry.value) {
+                out.writeString(style.name);
+                out.writeString(style.clazz.getName());
+                out.writeBoolean(style.deletable);
+                out.writeInt(style.properties.size);
+                for (Entry<String, StyleProperty> propertyEntry : style.properties.entries()) {
+                    StyleProperty property = propertyEntry.value;
+                    out.writeString(propertyEntry.key);
+                    out.writeString(property.type == Float.TYPE ? FLOAT_TYPE : property.type.getName());
+                    out.writeString(property.name);
+                    out.writeBoolean(property.optional);
+                    out.writeValue(property.value);
+                }
+            }
+        }
+    }
+    
+    private static void readStyles(SectionReader in, JsonData jsonData) throws IOException {
+        OrderedMap<Class, Array<StyleData>> classStyleMap = jsonData.getClassStyleMap();
+        classStyleMap.clear();
+        try {
+            int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                Class clazz = ClassReflection.forName(in.readString());
+                int styleCount = in.readInt();
+                Array<StyleData> styles = new Array<>(styleCount);
+                for (int j = 0; j < styleCount; j++) {
+                    StyleData style = new StyleData();
+                    style.name = in.readString();
+                    style.clazz = ClassReflection.forName(in.readString());
+                    style.deletable = in.readBoolean();
+                    style.jsonData = jsonData;
+                    int propertyCount = in.readInt();
+                    style.properties = new OrderedMap<>(propertyCount);
+                    for (int k = 0; k < propertyCount; k++) {
+                        String key = in.readString();
+                        StyleProperty property = new StyleProperty();
+                        String typeName = in.readString();
+                        property.type = FLOAT_TYPE.equals(typeName) ? Float.TYPE : ClassReflection.forName(typeName);
+                        property.name = in.readString();
+                        property.optional = in.readBoolean();
+                        property.value = in.readValue();
+                        style.properties.put(key, property);
+                    }
+                    styles.add(style);
+                }
+                classStyleMap.put(clazz, styles);
+            }
+        } catch (ReflectionException e) {
+            throw new IOException("Unknown class in binary project", e);
+        }
+    }
+    
+    private static void writeCustomClasses(SectionWriter out, JsonData jsonData, AtlasData atlasData) throws IOException {
+        Array<CustomClass> customClasses = jsonData.getCustomClasses();
+        out.writeInt(customClasses.size);
+        for (CustomClass customClass : customClasses) {
+            out.writeString(customClass.getFullyQualifiedName());
+            out.writeString(customClass.getDisplayName());
+            out.writeInt(customClass.getStyles().size);
+            for (CustomStyle style : customClass.getStyles()) {
+                writeCustomStyle(out, style, jsonData, atlasData);
+            }
+            writeCustomStyle(out, customClass.getTemplateStyle(), jsonData, atlasData);
+        }
+    }
+    
+    private static void writeCustomStyle(SectionWriter out, CustomStyle style, JsonData jsonData, AtlasData atlasData) throws IOException {
+        out.writeString(style.getName());
+        out.writeBoolean(style.isDeletable());
+        out.writeInt(style.getProperties().size);
+        for (CustomProperty property : style.getProperties()) {
+            out.writeString(property.getName());
+            out.writeString(property.getType() == null ? null : property.getType().name());
+            out.writeValue(property.hasValidValue(jsonData, atlasData) ? property.getValue() : null);
+        }
+    }
+    
+    private static void readCustomClasses(SectionReader in, Array<CustomClass> customClasses) throws IOException {
+        customClasses.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String fullyQualifiedName = in.readString();
+            String displayName = in.readString();
+            CustomClass customClass = new CustomClass(fullyQualifiedName, displayName);
+            customClass.getStyles().clear();
+            int styleCount = in.readInt();
+            for (int j = 0; j < styleCount; j++) {
+                CustomStyle style = new CustomStyle(null);
+                readCustomStyle(in, style);
+                style.setParentClass(customClass);
+                customClass.getStyles().add(style);
+            }
+            readCustomStyle(in, customClass.getTemplateStyle());
+            customClasses.add(customClass);
+        }
+    }
+    
+    private static void readCustomStyle(SectionReader in, CustomStyle style) throws IOException {
+        style.setName(in.readString());
+        style.setDeletable(in.readBoolean());
+        style.getProperties().clear();
+        int propertyCount = in.readInt();
+        for (int i = 0; i < propertyCount; i++) {
+            String name = in.readString();
+            String typeName = in.readString();
+            CustomProperty property = new CustomProperty();
+            property.setName(name);
+            property.setType(typeName == null ? null : PropertyType.valueOf(typeName));
+            property.setValue(in.readValue());
+            property.setParentStyle(style);
+            style.getProperties().add(property);
+        }
+    }
+    
+    private static class StringTable {
+        private final Array<String> strings = new Array<>();
+        private final ObjectIntMap<String> indices = new ObjectIntMap<>();
+        
+        public int index(String string) {
+            int index = indices.get(string, -1);
+            if (index == -1) {
+                index = strings.size;
+                strings.add(string);
+                indices.put(string, index);
+            }
+            return index;
+        }
+    }
+    
+    private static class SectionWriter extends DataOutputStream {
+        private final StringTable strings;
+        
+        public SectionWriter(StringTable strings) {
+            super(new ByteArrayOutputStream(256));
+            this.strings = strings;
+        }
+        
+        public byte[] toByteArray() {
+            return ((ByteArrayOutputStream) out).toByteArray();
+        }
+        
+        public void writeString(String string) throws IOException {
+            writeInt(string == null ? -1 : strings.index(string));
+        }
+        
+        public void writeColor(Color color) throws IOException {
+            writeBoolean(color != null);
+            if (color != null) {
+                writeFloat(color.r);
+                writeFloat(color.g);
+                writeFloat(color.b);
+                writeFloat(color.a);
+            }
+        }
+        
+        public void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeByte(VALUE_NULL);
+            } else if (value instanceof String) {
+                writeByte(VALUE_STRING);
+                writeString((String) value);
+            } else if (value instanceof Double) {
+                writeByte(VALUE_DOUBLE);
+                writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                writeByte(VALUE_FLOAT);
+                writeFloat((Float) value);
+            } else if (value instanceof Integer) {
+                writeByte(VALUE_INTEGER);
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(VALUE_LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Boolean) {
+                writeByte(VALUE_BOOLEAN);
+                writeBoolean((Boolean) value);
+            } else {
+                writeByte(VALUE_STRING);
+                writeString(value.toString());
+            }
+        }
+    }
+    
+    private static class SectionReader {
+        private final DataInputStream in;
+        private final String[] strings;
+        
+        public SectionReader(DataInputStream in, String[] strings) {
+            this.in = in;
+            this.strings = strings;
+        }
+        
+        public int readInt() throws IOException {
+            return in.readInt();
+        }
+        
+        public boolean readBoolean() throws IOException {
+            return in.readBoolean();
+        }
+        
+        public String readString() throws IOException {
+            int index = in.readInt();
+            if (index == -1) {
+                return null;
+            } else if (index < 0 || index >= strings.length) {
+                throw new IOException("Invalid string index in binary project: " + index);
+            }
+            return strings[index];
+        }
+        
+        public Color readColor() throws IOException {
+            if (in.readBoolean()) {
+                return new Color(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+            } else {
+                return null;
+            }
+        }
+        
+        public Object readValue() throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return readString();
+                case VALUE_DOUBLE:
+                    return in.readDouble();
+                case VALUE_FLOAT:
+                    return in.readFloat();
+                case VALUE_INTEGER:
+                    return in.readInt();
+                case VALUE_LONG:
+                    return in.readLong();
+                case VALUE_BOOLEAN:
+                    return in.readBoolean();
+                default:
+                    throw new IOException("Invalid value type in binary project: " + type);
+            }
+        }
+    }
+}
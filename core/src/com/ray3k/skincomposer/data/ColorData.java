@@ -63,6 +63,15 @@ public class ColorData {
         return name;
     }
     
+    public ColorData copy() {
+        ColorData returnValue = new ColorData();
+        returnValue.name = name;
+        if (color != null) {
+            returnValue.color = new Color(color);
+        }
+        return returnValue;
+    }
+    
     public static boolean validate(String name) {
         return name != null && !name.matches("^\\d.*|^-.*|.*\\s.*|.*[^a-zA-Z\\d\\s-_].*|^$");
     }
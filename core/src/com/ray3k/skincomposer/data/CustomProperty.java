@@ -122,46 +122,57 @@ public class CustomProperty implements Json.Serializable {
         return returnValue;
     }
 
-    @Override
-    public void write(Json json) {
-        json.writeValue("name", name);
-        json.writeValue("type", type);
-        
-        //only write value if it is valid
-        boolean writeValue = false;
+    /**
+     * Returns true if the value matches the type of this property and, for
+     * colors, drawables, and fonts, refers to a resource that exists.
+     * @param jsonData
+     * @param atlasData
+     * @return 
+     */
+    public boolean hasValidValue(JsonData jsonData, AtlasData atlasData) {
+        boolean valid = false;
 
         if (value instanceof Float && type == PropertyType.NUMBER
                 || value instanceof Double && type == PropertyType.NUMBER
                 || value instanceof Boolean && type == PropertyType.BOOL) {
-            writeValue = true;
+            valid = true;
         } else if (value instanceof String) {
             if (type == PropertyType.TEXT) {
-                writeValue = true;
+                valid = true;
             } else if (type == PropertyType.COLOR) {
-                for (ColorData data : main.getJsonData().getColors()) {
+                for (ColorData data : jsonData.getColors()) {
                     if (data.getName().equals(value)) {
-                        writeValue = true;
+                        valid = true;
                         break;
                     }
                 }
             } else if (type == PropertyType.DRAWABLE) {
-                for (DrawableData data : main.getAtlasData().getDrawables()) {
+                for (DrawableData data : atlasData.getDrawables()) {
                     if (data.name.equals(value)) {
-                        writeValue = true;
+                        valid = true;
                         break;
                     }
                 }
             } else if (type == PropertyType.FONT) {
-                for (FontData data : main.getJsonData().getFonts()) {
+                for (FontData data : jsonData.getFonts()) {
                     if (data.getName().equals(value)) {
-                        writeValue = true;
+                        valid = true;
                         break;
                     }
                 }
             }
         }
         
-        if (writeValue) {
+        return valid;
+    }
+
+    @Override
+    public void write(Json json) {
+        json.writeValue("name", name);
+        json.writeValue("type", type);
+        
+        //only write value if it is valid, detached copies are checked when created
+        if (main == null || hasValidValue(main.getJsonData(), main.getAtlasData())) {
             json.writeValue("value", value);
         } else {
             json.writeValue("value", (Object) null);
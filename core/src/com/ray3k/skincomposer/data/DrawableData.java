@@ -80,6 +80,17 @@ public class DrawableData implements Json.Serializable{
         return returnValue;
     }
 
+    public DrawableData copy() {
+        DrawableData returnValue = new DrawableData();
+        returnValue.file = file;
+        returnValue.bgColor = bgColor == null ? null : new Color(bgColor);
+        returnValue.visible = visible;
+        returnValue.tint = tint == null ? null : new Color(tint);
+        returnValue.tintName = tintName;
+        returnValue.name = name;
+        return returnValue;
+    }
+
     @Override
     public void write(Json json) {
         if (file != null) {
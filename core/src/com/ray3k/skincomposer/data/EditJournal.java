@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.Undoable;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only journal of edits made since the project was last saved. Edits
+ * made through the UndoableManager are recorded as they happen as a single
+ * serialized undoable together with its direction. Other changes, such as
+ * adding or removing colors, fonts and drawables, are recorded as a
+ * checkpoint of the whole project at the start of the next frame. Saving or
+ * loading compacts the journal by deleting it. If the application exits
+ * without doing either, the journal is replayed over the last saved project
+ * file on the next start.
+ */
+public class EditJournal implements Disposable {
+    private static final byte[] MAGIC = {'S', 'C', 'J', 'L', 0};
+    private static final int VERSION = 2;
+    private static final byte COLORS = 1;
+    private static final byte FONTS = 2;
+    private static final byte DRAWABLES = 3;
+    private static final byte STYLES = 4;
+    private static final byte CUSTOM_CLASSES = 5;
+    private static final byte PREFERENCES = 6;
+    private static final byte REDO = 7;
+    private static final byte UNDO = 8;
+    private static final String PREF_JOURNAL = "journal-file";
+    
+    private final Main main;
+    private final Preferences generalPref;
+    private final Json json;
+    private FileHandle journalFile;
+    private DataOutputStream output;
+    private boolean checkpointPending;
+    private boolean flushPending;
+
+    public EditJournal(Main main) {
+        this.main = main;
+        generalPref = Gdx.app.getPreferences("com.ray3k.skincomposer");
+        json = new Json(JsonWriter.OutputType.minimal);
+        json.setUsePrototypes(false);
+    }
+    
+    /**
+     * Schedules a checkpoint of the project at the start of the next frame.
+     * Used for changes that are not recorded with recordRedo() or
+     * recordUndo(). Multiple calls within one frame result in a single
+     * checkpoint.
+     */
+    public void markDirty() {
+        checkpointPending = true;
+        scheduleFlush();
+    }
+    
+    /**
+     * Records that an undoable was performed or redone.
+     * @param undoable The undoable serialized by the UndoableManager.
+     */
+    public void recordRedo(String undoable) {
+        record(REDO, undoable);
+    }
+    
+    /**
+     * Records that an undoable was undone.
+     * @param undoable The undoable serialized by the UndoableManager.
+     */
+    public void recordUndo(String undoable) {
+        record(UNDO, undoable);
+    }
+    
+    /**
+     * Writes a pending checkpoint and flushes the journal to disk. Projects
+     * that have never been saved are not journaled.
+     */
+    public void flush() {
+        flushPending = false;
+        
+        try {
+            if (checkpointPending) {
+                checkpointPending = false;
+                writeCheckpoint();
+            }
+            
+            if (output != null) {
+                output.flush();
+            }
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while writing edit journal", e);
+            close();
+        }
+    }
+    
+    /**
+     * Deletes the journal. Called whenever the project file on disk matches
+     * the project in memory.
+     */
+    public void reset() {
+        close();
+        checkpointPending = false;
+        if (journalFile != null) {
+            journalFile.delete();
+            journalFile = null;
+        }
+        generalPref.remove(PREF_JOURNAL);
+        generalPref.flush();
+    }
+    
+    /**
+     * Offers to replay the journal of a session that did not exit cleanly.
+     */
+    public void checkForRecovery() {
+        String path = generalPref.getString(PREF_JOURNAL, null);
+        if (path == null) {
+            return;
+        }
+        
+        FileHandle file = new FileHandle(path);
+        Array<Record> records = new Array<>();
+        FileHandle projectFile;
+        try {
+            projectFile = readJournal(file, records);
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while reading edit journal", e);
+            projectFile = null;
+        }
+        
+        if (projectFile == null || !projectFile.exists() || records.size == 0) {
+            file.delete();
+            generalPref.remove(PREF_JOURNAL);
+            generalPref.flush();
+            return;
+        }
+        
+        FileHandle recoveredFile = projectFile;
+        main.getDialogFactory().yesNoDialog("Recover Changes?",
+                "Skin Composer did not close properly.\nRecover unsaved changes to "
+                + recoveredFile.nameWithoutExtension() + "?", (int selection) -> {
+            if (selection == 0) {
+                main.getDialogFactory().showDialogLoading(() -> {
+                    ProjectData projectData = main.getProjectData();
+                    projectData.load(recoveredFile);
+                    for (Record record : records) {
+                        try {
+                            apply(record);
+                        } catch (ReflectionException | RuntimeException e) {
+                            Gdx.app.error(getClass().getName(), "Error while replaying edit journal", e);
+                        }
+                    }
+                    //the undo history file matches the saved project, not the recovered one
+                    main.getUndoableManager().closeHistory();
+                    main.getUndoableManager().clearUndoables();
+                    projectData.getAtlasData().atlasCurrent = false;
+                    main.getRootTable().produceAtlas();
+                    main.getRootTable().populate();
+                    projectData.setChangesSaved(false);
+                });
+            } else {
+                file.delete();
+                generalPref.remove(PREF_JOURNAL);
+                generalPref.flush();
+            }
+        });
+    }
+
+    /**
+     * Closes and deletes the journal. Only called on a clean exit.
+     */
+    @Override
+    public void dispose() {
+        close();
+        if (journalFile != null) {
+            journalFile.delete();
+        }
+        generalPref.remove(PREF_JOURNAL);
+        generalPref.flush();
+    }
+    
+    private void scheduleFlush() {
+        if (!flushPending) {
+            flushPending = true;
+            Gdx.app.postRunnable(this::flush);
+        }
+    }
+    
+    private void record(byte type, String undoable) {
+        try {
+            append(type, "", undoable);
+            scheduleFlush();
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while writing edit journal", e);
+            close();
+        }
+    }
+    
+    private void writeCheckpoint() throws IOException {
+        ProjectData projectData = main.getProjectData();
+        JsonData jsonData = projectData.getJsonData();
+        
+        append(COLORS, "", json.toJson(jsonData.getColors(), Array.class, ColorData.class));
+        append(FONTS, "", json.toJson(jsonData.getFonts(), Array.class, FontData.class));
+        append(DRAWABLES, "", json.toJson(projectData.getAtlasData().getDrawables(), Array.class, DrawableData.class));
+        for (Class<?> clazz : jsonData.getClassStyleMap().keys()) {
+            append(STYLES, clazz.getName(), json.toJson(jsonData.getClassStyleMap().get(clazz), Array.class, StyleData.class));
+        }
+        append(CUSTOM_CLASSES, "", json.toJson(jsonData.getCustomClasses(), Array.class, CustomClass.class));
+        append(PREFERENCES, "", json.toJson(projectData.getPreferences(), ObjectMap.class));
+    }
+    
+    private void append(byte type, String key, String text) throws IOException {
+        if (output == null) {
+            FileHandle saveFile = main.getProjectData().getSaveFile();
+            if (saveFile == null || saveFile.type() == Files.FileType.Local) {
+                return;
+            }
+            
+            journalFile = saveFile.sibling(saveFile.name() + ".journal");
+            output = new DataOutputStream(new BufferedOutputStream(journalFile.write(false)));
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(saveFile.path());
+            generalPref.putString(PREF_JOURNAL, journalFile.path());
+            generalPref.flush();
+        }
+        
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.writeByte(type);
+        output.writeUTF(key);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+    
+    private void close() {
+        StreamUtils.closeQuietly(output);
+        output = null;
+    }
+    
+    /**
+     * Reads all complete records. A record cut short by a crash ends the
+     * journal.
+     * @return the project file the journal applies to or null if the file is
+     * not a journal.
+     */
+    private FileHandle readJournal(FileHandle file, Array<Record> records) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        
+        DataInputStream input = new DataInputStream(file.read(8192));
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            input.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || input.readInt() != VERSION) {
+                return null;
+            }
+            FileHandle projectFile = new FileHandle(input.readUTF());
+            
+            try {
+                while (true) {
+                    Record record = new Record();
+                    record.type = input.readByte();
+                    record.key = input.readUTF();
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    record.text = new String(bytes, StandardCharsets.UTF_8);
+                    records.add(record);
+                }
+            } catch (EOFException e) {
+                //end of journal
+            }
+            
+            return projectFile;
+        } finally {
+            StreamUtils.closeQuietly(input);
+        }
+    }
+    
+    private void apply(Record record) throws ReflectionException {
+        ProjectData projectData = main.getProjectData();
+        JsonData jsonData = projectData.getJsonData();
+        
+        switch (record.type) {
+            case COLORS:
+                jsonData.getColors().clear();
+                jsonData.getColors().addAll(readArray(ColorData.class, record.text));
+                break;
+            case FONTS:
+                jsonData.getFonts().clear();
+                jsonData.getFonts().addAll(readArray(FontData.class, record.text));
+                break;
+            case DRAWABLES:
+                projectData.getAtlasData().getDrawables().clear();
+                projectData.getAtlasData().getDrawables().addAll(readArray(DrawableData.class, record.text));
+                break;
+            case STYLES:
+                Array<StyleData> styles = readArray(StyleData.class, record.text);
+                for (StyleData style : styles) {
+                    style.jsonData = jsonData;
+                }
+                jsonData.getClassStyleMap().put(ClassReflection.forName(record.key), styles);
+                break;
+            case CUSTOM_CLASSES:
+                Array<CustomClass> customClasses = readArray(CustomClass.class, record.text);
+                for (CustomClass customClass : customClasses) {
+                    customClass.setMain(main);
+                }
+                jsonData.getCustomClasses().clear();
+                jsonData.getCustomClasses().addAll(customClasses);
+                break;
+            case PREFERENCES:
+                projectData.getPreferences().clear();
+                projectData.getPreferences().putAll(readPreferences(record.text));
+                break;
+            case REDO:
+            case UNDO:
+                Undoable undoable = main.getUndoableManager().readUndoable(new JsonReader().parse(record.text));
+                if (undoable == null) {
+                    Gdx.app.error(getClass().getName(), "Unable to replay journaled edit: " + record.text);
+                } else if (record.type == REDO) {
+                    undoable.redo();
+                } else {
+                    undoable.undo();
+                }
+                break;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> Array<T> readArray(Class<T> type, String text) {
+        return json.fromJson(Array.class, type, text);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ObjectMap<String, Object> readPreferences(String text) {
+        return json.fromJson(ObjectMap.class, text);
+    }
+    
+    private static class Record {
+        private byte type;
+        private String key;
+        private String text;
+    }
+}
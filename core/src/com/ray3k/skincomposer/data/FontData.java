@@ -83,6 +83,13 @@ public class FontData implements Json.Serializable {
         return name;
     }
     
+    public FontData copy() {
+        FontData returnValue = new FontData();
+        returnValue.name = name;
+        returnValue.file = file;
+        return returnValue;
+    }
+    
     public static boolean validate(String name) {
         return name != null && !name.matches("^\\d.*|^-.*|.*\\s.*|.*[^a-zA-Z\\d\\s-_].*|^$");
     }
@@ -44,6 +44,7 @@ import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter;
 import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.OrderedMap;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
@@ -116,7 +117,7 @@ public class JsonData implements Json.Serializable {
                         }
                         FileHandle fontCopy = targetDirectory.child(font.getString("file"));
                         if (!fontCopy.parent().equals(fontFile.parent())) {
-                            fontFile.copyTo(fontCopy);
+                            main.getResourceStore().copy(fontFile, fontCopy.parent());
                         }
                         FontData fontData = new FontData(font.name(), fontCopy);
                         
@@ -743,26 +744,34 @@ public class JsonData implements Json.Serializable {
         styles.removeValue(styleData, true);
         
         //reset any properties pointing to this style to the default style
+        for (StyleProperty property : getStyleReferences(styleData)) {
+            property.value = "default";
+        }
+    }
+    
+    /**
+     * Returns the style properties of other styles that refer to styleData by
+     * name, like the listStyle of a SelectBoxStyle.
+     * @param styleData
+     * @return 
+     */
+    public Array<StyleProperty> getStyleReferences(StyleData styleData) {
+        Array<StyleProperty> references = new Array<>();
         if (styleData.clazz.equals(Label.class)) {
-            for (StyleData data : getClassStyleMap().get(TextTooltip.class)) {
-                StyleProperty property = data.properties.get("label");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
-            }
+            addStyleReferences(references, TextTooltip.class, "label", styleData.name);
         } else if (styleData.clazz.equals(List.class)) {
-            for (StyleData data : getClassStyleMap().get(SelectBox.class)) {
-                StyleProperty property = data.properties.get("listStyle");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
-            }
+            addStyleReferences(references, SelectBox.class, "listStyle", styleData.name);
         } else if (styleData.clazz.equals(ScrollPane.class)) {
-            for (StyleData data : getClassStyleMap().get(SelectBox.class)) {
-                StyleProperty property = data.properties.get("scrollStyle");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
+            addStyleReferences(references, SelectBox.class, "scrollStyle", styleData.name);
+        }
+        return references;
+    }
+    
+    private void addStyleReferences(Array<StyleProperty> references, Class clazz, String propertyName, String styleName) {
+        for (StyleData data : getClassStyleMap().get(clazz)) {
+            StyleProperty property = data.properties.get(propertyName);
+            if (property != null && property.value != null && property.value.equals(styleName)) {
+                references.add(property);
             }
         }
     }
@@ -781,6 +790,64 @@ public class JsonData implements Json.Serializable {
         customClasses.addAll(jsonData.customClasses);
     }
 
+    /**
+     * Creates a deep copy that shares no mutable state with this instance. The
+     * copy and its custom classes are not attached to Main and are only meant
+     * to be serialized.
+     * @return 
+     */
+    public JsonData copy() {
+        JsonData returnValue = new JsonData();
+        
+        for (ColorData color : colors) {
+            returnValue.colors.add(color.copy());
+        }
+        
+        for (FontData font : fonts) {
+            returnValue.fonts.add(font.copy());
+        }
+        
+        returnValue.classStyleMap.clear();
+        for (Entry<Class, Array<StyleData>> entry : classStyleMap.entries()) {
+            Array<StyleData> styles = new Array<>();
+            for (StyleData style : entry.value) {
+                StyleData styleCopy = new StyleData(style, style.name, null);
+                styleCopy.deletable = style.deletable;
+                styleCopy.jsonData = returnValue;
+                styles.add(styleCopy);
+            }
+            returnValue.classStyleMap.put(entry.key, styles);
+        }
+        
+        for (CustomClass customClass : customClasses) {
+            CustomClass classCopy = new CustomClass(customClass.getFullyQualifiedName(), customClass.getDisplayName());
+            classCopy.getStyles().clear();
+            for (CustomStyle style : customClass.getStyles()) {
+                CustomStyle styleCopy = new CustomStyle(style.getName());
+                copyCustomStyle(style, styleCopy, classCopy);
+                classCopy.getStyles().add(styleCopy);
+            }
+            copyCustomStyle(customClass.getTemplateStyle(), classCopy.getTemplateStyle(), classCopy);
+            returnValue.customClasses.add(classCopy);
+        }
+        
+        return returnValue;
+    }
+    
+    private void copyCustomStyle(CustomStyle source, CustomStyle target, CustomClass parentClass) {
+        target.setName(source.getName());
+        target.setDeletable(source.isDeletable());
+        target.setParentClass(parentClass);
+        for (CustomProperty property : source.getProperties()) {
+            CustomProperty propertyCopy = new CustomProperty();
+            propertyCopy.setName(property.getName());
+            propertyCopy.setType(property.getType());
+            propertyCopy.setValue(property.getValue());
+            propertyCopy.setParentStyle(target);
+            target.getProperties().add(propertyCopy);
+        }
+    }
+
     public Array<CustomClass> getCustomClasses() {
         return customClasses;
     }
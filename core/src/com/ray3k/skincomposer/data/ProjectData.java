@@ -28,11 +28,16 @@ import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.ray3k.skincomposer.Main;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Iterator;
 
 public class ProjectData implements Json.Serializable {
@@ -42,9 +47,12 @@ public class ProjectData implements Json.Serializable {
     private boolean changesSaved;
     private boolean newProject;
     private static final int MAX_RECENT_FILES = 5;
+    public static final int DEFAULT_UNDO_MEMORY = 1024;
     private Main main;
     private final JsonData jsonData;
     private final AtlasData atlasData;
+    private int revision;
+    private int savedRevision;
     
     public ProjectData() {
         jsonData = new JsonData();
@@ -56,6 +64,32 @@ public class ProjectData implements Json.Serializable {
         generalPref = Gdx.app.getPreferences("com.ray3k.skincomposer");
         clear();
     }
+    
+    /**
+     * Copy constructor used by {@link #snapshot()}. Does not touch the window
+     * title or Main.
+     */
+    private ProjectData(ProjectData source) {
+        jsonData = source.jsonData.copy();
+        atlasData = source.atlasData.copy();
+        
+        changesSaved = source.changesSaved;
+        newProject = source.newProject;
+        preferences = new ObjectMap<>(source.preferences);
+        saveFile = source.saveFile;
+        revision = source.revision;
+        
+        //values are validated against the live data here as the copy has no Main
+        for (CustomClass customClass : jsonData.getCustomClasses()) {
+            for (CustomStyle style : customClass.getStyles()) {
+                for (CustomProperty property : style.getProperties()) {
+                    if (!property.hasValidValue(jsonData, atlasData)) {
+                        property.setValue(null);
+                    }
+                }
+            }
+        }
+    }
 
     public void setMain(Main main) {
         this.main = main;
@@ -137,12 +171,20 @@ public class ProjectData implements Json.Serializable {
         main.getRootTable().setRecentFilesDisabled(false);
     }
     
-    public void setMaxUndos(int maxUndos) {
-        preferences.put("maxUndos", maxUndos);
+    /**
+     * Sets the memory budget of the undo history.
+     * @param kilobytes The budget in kilobytes.
+     */
+    public void setUndoMemory(int kilobytes) {
+        preferences.put("undoMemory", kilobytes);
     }
     
-    public int getMaxUndos() {
-        return (int) preferences.get("maxUndos", 30);
+    /**
+     * Returns the memory budget of the undo history.
+     * @return The budget in kilobytes.
+     */
+    public int getUndoMemory() {
+        return (int) preferences.get("undoMemory", DEFAULT_UNDO_MEMORY);
     }
     
     public void setAllowingWelcome(boolean allow) {
@@ -154,6 +196,47 @@ public class ProjectData implements Json.Serializable {
         return generalPref.getBoolean("allowingWelcome", true);
     }
     
+    /**
+     * Interval between background autosaves in minutes. 0 disables autosave.
+     * @return 
+     */
+    public int getAutosaveInterval() {
+        return generalPref.getInteger("autosave-interval", 0);
+    }
+    
+    public void setAutosaveInterval(int minutes) {
+        generalPref.putInteger("autosave-interval", minutes);
+        generalPref.flush();
+    }
+    
+    /**
+     * If true, opening a project only reads the style model and packs the
+     * texture atlas for previews on a background thread.
+     * @return 
+     */
+    public boolean isLoadingInBackground() {
+        return generalPref.getBoolean("load-in-background", true);
+    }
+    
+    public void setLoadingInBackground(boolean loadingInBackground) {
+        generalPref.putBoolean("load-in-background", loadingInBackground);
+        generalPref.flush();
+    }
+    
+    /**
+     * If true, the editor only renders frames when input, actions, animations,
+     * or background jobs request it instead of rendering continuously.
+     * @return 
+     */
+    public boolean isIdleRendering() {
+        return generalPref.getBoolean("idle-rendering", true);
+    }
+    
+    public void setIdleRendering(boolean idleRendering) {
+        generalPref.putBoolean("idle-rendering", idleRendering);
+        generalPref.flush();
+    }
+    
     public FileHandle getSaveFile() {
         return saveFile;
     }
@@ -163,7 +246,19 @@ public class ProjectData implements Json.Serializable {
     }
 
     public void setChangesSaved(boolean changesSaved) {
+        setChangesSaved(changesSaved, true);
+    }
+    
+    /**
+     * @param changesSaved
+     * @param checkpoint If false, unsaved changes don't schedule a checkpoint
+     * in the edit journal because the caller records them itself.
+     */
+    public void setChangesSaved(boolean changesSaved, boolean checkpoint) {
         this.changesSaved = changesSaved;
+        if (!changesSaved) {
+            revision++;
+        }
         newProject = false;
         String title = "Skin Composer";
         if (saveFile != null && saveFile.exists()) {
@@ -175,12 +270,115 @@ public class ProjectData implements Json.Serializable {
             title += " - New Project*";
         }
         Gdx.graphics.setTitle(title);
+        
+        if (main != null && main.getEditJournal() != null) {
+            if (changesSaved) {
+                main.getEditJournal().reset();
+            } else if (checkpoint) {
+                main.getEditJournal().markDirty();
+            }
+        }
     }
 
     public boolean isNewProject() {
         return newProject;
     }
     
+    /**
+     * Incremented every time the project is marked as having unsaved changes.
+     * @return 
+     */
+    public int getRevision() {
+        return revision;
+    }
+    
+    /**
+     * Creates a deep copy of the project that can be serialized on another
+     * thread while editing continues. Must be called on the GL thread.
+     * @return 
+     * @see #writeSnapshot(com.ray3k.skincomposer.data.ProjectData)
+     */
+    public ProjectData snapshot() {
+        return new ProjectData(this);
+    }
+    
+    /**
+     * Writes a snapshot created by {@link #snapshot()} to its save file. The
+     * file is replaced atomically and is skipped if the same or a newer
+     * revision of this project has already been saved. Safe to call off the GL
+     * thread.
+     * @param snapshot
+     * @return true if the save file was replaced.
+     * @throws IOException 
+     */
+    public boolean writeSnapshot(ProjectData snapshot) throws IOException {
+        FileHandle tempFile = snapshot.writeTempFile(snapshot.saveFile);
+        synchronized (this) {
+            if (snapshot.revision <= savedRevision) {
+                tempFile.delete();
+                return false;
+            }
+            replaceFile(tempFile, snapshot.saveFile);
+            savedRevision = snapshot.revision;
+        }
+        return true;
+    }
+    
+    /**
+     * Returns true if any drawable or font still has to be moved or copied
+     * next to the save file. These are only handled by a regular save.
+     * @return 
+     */
+    public boolean hasPendingResourceMoves() {
+        if (saveFile == null) {
+            return true;
+        }
+        
+        FileHandle tempImportFolder = Gdx.files.local("temp/" + getId() + "_data/");
+        FileHandle targetFolder = saveFile.sibling(saveFile.nameWithoutExtension() + "_data/");
+        boolean resourcesRelative = areResourcesRelative();
+        
+        for (DrawableData drawableData : atlasData.getDrawables()) {
+            FileHandle parent = drawableData.file.parent();
+            if (parent.equals(tempImportFolder) || resourcesRelative && !parent.equals(targetFolder)) {
+                return true;
+            }
+        }
+        
+        for (FontData fontData : jsonData.getFonts()) {
+            FileHandle parent = fontData.file.parent();
+            if (parent.equals(tempImportFolder) || resourcesRelative && !parent.equals(targetFolder)) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private FileHandle writeTempFile(FileHandle file) throws IOException {
+        FileHandle tempFile = file.sibling(file.name() + ".tmp");
+        if (isBinaryFormat()) {
+            BinaryProjectFormat.write(this, tempFile);
+        } else {
+            Json json = new Json(JsonWriter.OutputType.minimal);
+            json.setUsePrototypes(false);
+            try {
+                tempFile.writeString(json.prettyPrint(this), false);
+            } catch (GdxRuntimeException e) {
+                throw new IOException(e);
+            }
+        }
+        return tempFile;
+    }
+    
+    private static void replaceFile(FileHandle source, FileHandle target) throws IOException {
+        try {
+            Files.move(source.file().toPath(), target.file().toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.file().toPath(), target.file().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
     private void moveImportedFiles(FileHandle oldSave, FileHandle newSave) {
         FileHandle tempImportFolder = Gdx.files.local("temp/" + getId() + "_data/");
         FileHandle localImportFolder;
@@ -196,13 +394,11 @@ public class ProjectData implements Json.Serializable {
                 targetFolder.mkdirs();
                 //drawable files in the temp folder
                 if (drawableData.file.parent().equals(tempImportFolder)) {
-                    drawableData.file.moveTo(targetFolder);
-                    drawableData.file = targetFolder.child(drawableData.file.name());
+                    drawableData.file = main.getResourceStore().move(drawableData.file, targetFolder);
                 }
                 //drawable files in the folder next to the old save
                 else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && drawableData.file.parent().equals(localImportFolder)) {
-                    drawableData.file.copyTo(targetFolder);
-                    drawableData.file = targetFolder.child(drawableData.file.name());
+                    drawableData.file = main.getResourceStore().copy(drawableData.file, targetFolder);
                 }
             }
         }
@@ -213,13 +409,11 @@ public class ProjectData implements Json.Serializable {
                 
                 //font files in the temp folder
                 if (fontData.file.parent().equals(tempImportFolder)) {
-                    fontData.file.moveTo(targetFolder);
-                    fontData.file = targetFolder.child(fontData.file.name());
+                    fontData.file = main.getResourceStore().move(fontData.file, targetFolder);
                 }
                 //font files in the data folder next to the old save
                 else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && fontData.file.parent().equals(localImportFolder)) {
-                    fontData.file.copyTo(targetFolder);
-                    fontData.file = targetFolder.child(fontData.file.name());
+                    fontData.file = main.getResourceStore().copy(fontData.file, targetFolder);
                 }
             }
         }
@@ -230,16 +424,13 @@ public class ProjectData implements Json.Serializable {
         
         for (DrawableData drawableData : main.getAtlasData().getDrawables()) {
             if (drawableData.file.exists() && !targetFolder.equals(drawableData.file.parent())) {
-                targetFolder.mkdirs();
-                drawableData.file.copyTo(targetFolder);
-                drawableData.file = targetFolder.child(drawableData.file.name());
+                drawableData.file = main.getResourceStore().copy(drawableData.file, targetFolder);
             }
         }
         
         for (FontData fontData : main.getJsonData().getFonts()) {
             if (fontData.file.exists() && !targetFolder.equals(fontData.file.parent())) {
-                fontData.file.copyTo(targetFolder);
-                fontData.file = targetFolder.child(fontData.file.name());
+                fontData.file = main.getResourceStore().copy(fontData.file, targetFolder);
             }
         }
     }
@@ -257,9 +448,17 @@ public class ProjectData implements Json.Serializable {
         
         saveFile = file;
         putRecentFile(file.path());
-        Json json = new Json(JsonWriter.OutputType.minimal);
-        json.setUsePrototypes(false);
-        file.writeString(json.prettyPrint(this), false);
+        try {
+            synchronized (this) {
+                replaceFile(writeTempFile(file), file);
+                savedRevision = revision;
+            }
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while writing project file", e);
+            main.getDialogFactory().showDialogError("Save Error...", "Error while writing project file.\n\nOpen log?");
+            return;
+        }
+        main.getUndoableManager().saveHistory(file);
         setChangesSaved(true);
     }
     
@@ -268,12 +467,25 @@ public class ProjectData implements Json.Serializable {
     }
     
     public void load(FileHandle file) {
-        Json json = new Json(JsonWriter.OutputType.minimal);
-        ProjectData instance = json.fromJson(ProjectData.class, file);
+        boolean binary = BinaryProjectFormat.isBinary(file);
+        ProjectData instance;
+        if (binary) {
+            try {
+                instance = BinaryProjectFormat.read(file);
+            } catch (IOException e) {
+                Gdx.app.error(getClass().getName(), "Error while reading binary project file", e);
+                main.getDialogFactory().showDialogError("Error while reading file...", "Error while attempting to read save file.\nPlease ensure that file is not corrupted.\n\nOpen error log?");
+                return;
+            }
+        } else {
+            Json json = new Json(JsonWriter.OutputType.minimal);
+            instance = json.fromJson(ProjectData.class, file);
+        }
         newProject = instance.newProject;
         jsonData.set(instance.jsonData);
         atlasData.set(instance.atlasData);
         preferences.putAll(instance.preferences);
+        setBinaryFormat(binary);
         
         //set main for custom classes, styles, and properties
         for (CustomClass customClass : jsonData.getCustomClasses()) {
@@ -287,9 +499,17 @@ public class ProjectData implements Json.Serializable {
         
         correctFilePaths();
         
-        main.getRootTable().produceAtlas();
+        if (isLoadingInBackground()) {
+            main.getRootTable().produceAtlasInBackground();
+        } else {
+            main.getRootTable().produceAtlas();
+        }
         main.getRootTable().populate();
+        main.getUndoableManager().openHistory(file);
         setChangesSaved(true);
+        synchronized (this) {
+            savedRevision = revision;
+        }
     }
     
     private void correctFilePaths() {
@@ -326,7 +546,7 @@ public class ProjectData implements Json.Serializable {
         preferences.clear();
 
         randomizeId();
-        setMaxUndos(30);
+        setUndoMemory(DEFAULT_UNDO_MEMORY);
         setResourcesRelative(false);
         
         jsonData.clear();
@@ -335,6 +555,11 @@ public class ProjectData implements Json.Serializable {
         if (main != null) {
             main.getRootTable().produceAtlas();
             main.getRootTable().populate();
+            
+            if (main.getUndoableManager() != null) {
+                main.getUndoableManager().closeHistory();
+                main.getUndoableManager().clearUndoables();
+            }
         }
         setChangesSaved(false);
         newProject = true;
@@ -441,6 +666,28 @@ public class ProjectData implements Json.Serializable {
         preferences.put("resources-relative", resourcesRelative);
     }
     
+    /**
+     * Projects are saved in the compact binary format instead of JSON if true.
+     * Both formats are detected automatically when loading, so toggling this
+     * and saving converts the project.
+     * @return 
+     */
+    public boolean isBinaryFormat() {
+        return (boolean) preferences.get("binary-format", false);
+    }
+    
+    public void setBinaryFormat(boolean binaryFormat) {
+        preferences.put("binary-format", binaryFormat);
+    }
+    
+    ObjectMap<String, Object> getPreferences() {
+        return preferences;
+    }
+    
+    void setSaveFile(FileHandle saveFile) {
+        this.saveFile = saveFile;
+    }
+    
     /**
      * Returns true if file exists and depending on the state of relative resources
      * and save file state.
@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-addressed store for the drawable and font files kept in project
+ * _data folders. Every distinct file content is stored once under its SHA-1
+ * hash.
+ * <p>
+ * Drawables and fonts placed with {@link #copy(com.badlogic.gdx.files.FileHandle, com.badlogic.gdx.files.FileHandle)}
+ * are expected to be edited by other programs, so every project gets its own
+ * file. Where the file system supports it (Btrfs, XFS and APFS) the file is a
+ * copy-on-write clone of the stored file that shares its blocks until either
+ * is written. Otherwise it is a plain copy and the store is skipped.
+ * <p>
+ * Files generated by Skin Composer and placed with {@link #replace(com.badlogic.gdx.files.FileHandle, com.badlogic.gdx.files.FileHandle)}
+ * are hard links to the stored file, so saving a project under a new name
+ * does not copy any bytes. Linked files are never written in place: new
+ * content is written to a temporary file that is renamed over the link. A
+ * program that edits such a file in place still changes it in every project
+ * linked to the same content. The store notices this through the changed
+ * modification time and stops handing out the edited content, but the
+ * projects that already link to it keep the edit.
+ * <p>
+ * Next to every stored file a .refs file records the modification time of
+ * the stored file and the files placed from it. The recorded files serve as
+ * the reference count in {@link #prune()}. If the store cannot be linked to,
+ * for example because it is on another volume, the target is linked to one of
+ * the recorded files instead and only copied when none of them can be linked
+ * either.
+ */
+public class ResourceStore implements Disposable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final FileHandle folder;
+    private final AsyncExecutor executor;
+    private final ObjectSet<FileStore> cloneUnsupported;
+    private volatile boolean disposed;
+
+    public ResourceStore(FileHandle folder) {
+        this.folder = folder;
+        executor = new AsyncExecutor(1);
+        cloneUnsupported = new ObjectSet<>();
+    }
+    
+    /**
+     * Places the content of source in targetFolder under the same file name.
+     * The file is a clone or a copy that can be edited without affecting
+     * other projects.
+     * @param source
+     * @param targetFolder
+     * @return The file in targetFolder.
+     */
+    public synchronized FileHandle copy(FileHandle source, FileHandle targetFolder) {
+        FileHandle target = targetFolder.child(source.name());
+        try {
+            targetFolder.mkdirs();
+            if (target.exists() && Files.isSameFile(source.file().toPath(), target.file().toPath())) {
+                return target;
+            }
+            
+            if (isCloneSupported(targetFolder.file().toPath())) {
+                clone(store(source), target);
+            } else {
+                copyFile(source.file().toPath(), target.file().toPath());
+            }
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while cloning resource " + source.path() + ", copying instead", e);
+            try {
+                copyFile(source.file().toPath(), target.file().toPath());
+            } catch (IOException e1) {
+                Gdx.app.error(getClass().getName(), "Error while copying resource " + source.path(), e1);
+            }
+        }
+        return target;
+    }
+    
+    /**
+     * Same as {@link #copy(com.badlogic.gdx.files.FileHandle, com.badlogic.gdx.files.FileHandle)}
+     * but deletes source afterwards.
+     * @param source
+     * @param targetFolder
+     * @return The file in targetFolder.
+     */
+    public synchronized FileHandle move(FileHandle source, FileHandle targetFolder) {
+        FileHandle target = copy(source, targetFolder);
+        if (!target.equals(source)) {
+            source.delete();
+        }
+        return target;
+    }
+    
+    /**
+     * Replaces target with the content of source and deletes source. target
+     * is swapped for a new link instead of being written to, so other files
+     * sharing its old content are left untouched. Use this to write files in
+     * _data folders: write to a temporary file first, then replace.
+     * @param source
+     * @param target
+     */
+    public synchronized void replace(FileHandle source, FileHandle target) {
+        try {
+            link(store(source), target);
+            source.delete();
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while linking resource " + target.path() + ", moving instead", e);
+            try {
+                move(source.file().toPath(), target.file().toPath());
+            } catch (IOException e1) {
+                Gdx.app.error(getClass().getName(), "Error while moving resource " + source.path(), e1);
+            }
+        }
+    }
+    
+    /**
+     * Starts {@link #prune()} in the background. Stops early if the store is
+     * disposed.
+     */
+    public void pruneLater() {
+        executor.submit(() -> {
+            try {
+                prune();
+            } catch (Exception e) {
+                Gdx.app.error(getClass().getName(), "Error while pruning resource store", e);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Deletes stored files that are no longer referenced by any project file
+     * and drops references to files that were deleted or replaced. Every
+     * stored file is checked while holding the lock, so files can be placed
+     * while pruning.
+     */
+    public void prune() {
+        if (!folder.exists()) {
+            return;
+        }
+        
+        for (FileHandle bucket : folder.list()) {
+            for (FileHandle storedFile : bucket.list()) {
+                if (disposed) {
+                    return;
+                }
+                
+                synchronized (this) {
+                    pruneFile(storedFile);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Waits for a running prune to stop.
+     */
+    @Override
+    public void dispose() {
+        disposed = true;
+        executor.dispose();
+    }
+    
+    private void pruneFile(FileHandle storedFile) {
+        if (!storedFile.exists()) {
+            return;
+        }
+        
+        String extension = storedFile.extension();
+        if (extension.equals("tmp")) {
+            storedFile.delete();
+            return;
+        } else if (extension.equals("refs")) {
+            if (!storedFile.sibling(storedFile.nameWithoutExtension()).exists()) {
+                storedFile.delete();
+            }
+            return;
+        }
+        
+        try {
+            if (!isIntact(storedFile)) {
+                delete(storedFile);
+                return;
+            }
+            
+            Array<Path> references = readReferences(storedFile);
+            for (int i = references.size - 1; i >= 0; i--) {
+                if (!isReference(storedFile, references.get(i))) {
+                    references.removeIndex(i);
+                }
+            }
+            
+            if (references.size == 0) {
+                delete(storedFile);
+            } else {
+                writeReferences(storedFile, references);
+            }
+        } catch (IOException e) {
+            Gdx.app.error(getClass().getName(), "Error while pruning resource " + storedFile.path(), e);
+        }
+    }
+    
+    private FileHandle store(FileHandle file) throws IOException {
+        String hash = hash(file);
+        FileHandle storedFile = folder.child(hash.substring(0, 2)).child(hash);
+        if (storedFile.exists() && !isIntact(storedFile)) {
+            delete(storedFile);
+        }
+        
+        if (!storedFile.exists()) {
+            storedFile.parent().mkdirs();
+            copyFile(file.file().toPath(), storedFile.file().toPath());
+            writeReferences(storedFile, new Array<Path>());
+        }
+        return storedFile;
+    }
+    
+    /**
+     * Places a copy-on-write clone of storedFile at target.
+     * @param storedFile
+     * @param target
+     * @throws IOException 
+     */
+    private void clone(FileHandle storedFile, FileHandle target) throws IOException {
+        Path storedPath = storedFile.file().toPath();
+        Path targetPath = target.file().toPath().toAbsolutePath();
+        Path temp = targetPath.resolveSibling(target.name() + ".tmp");
+        Files.deleteIfExists(temp);
+        if (!createClone(temp, storedPath)) {
+            cloneUnsupported.add(Files.getFileStore(targetPath.getParent()));
+            Files.copy(storedPath, temp);
+        }
+        move(temp, targetPath);
+        
+        Array<Path> references = readReferences(storedFile);
+        if (!references.contains(targetPath, false)) {
+            references.add(targetPath);
+            writeReferences(storedFile, references);
+        }
+    }
+    
+    private boolean isCloneSupported(Path folder) throws IOException {
+        return !cloneUnsupported.contains(Files.getFileStore(folder));
+    }
+    
+    private void link(FileHandle storedFile, FileHandle target) throws IOException {
+        Path storedPath = storedFile.file().toPath();
+        Path targetPath = target.file().toPath().toAbsolutePath();
+        Array<Path> references = readReferences(storedFile);
+        
+        if (!target.exists() || !Files.isSameFile(storedPath, targetPath)) {
+            Path temp = targetPath.resolveSibling(target.name() + ".tmp");
+            Files.deleteIfExists(temp);
+            boolean linked = createLink(temp, storedPath);
+            for (int i = 0; !linked && i < references.size; i++) {
+                Path reference = references.get(i);
+                if (!reference.equals(targetPath) && isReference(storedFile, reference)) {
+                    linked = createLink(temp, reference);
+                }
+            }
+            
+            if (!linked) {
+                Files.copy(storedPath, temp);
+            }
+            move(temp, targetPath);
+        }
+        
+        if (!references.contains(targetPath, false)) {
+            references.add(targetPath);
+            writeReferences(storedFile, references);
+        }
+    }
+    
+    /**
+     * @param storedFile
+     * @param reference
+     * @return true if reference still holds the content of storedFile.
+     * @throws IOException 
+     */
+    private boolean isReference(FileHandle storedFile, Path reference) throws IOException {
+        if (!Files.isRegularFile(reference) || Files.size(reference) != storedFile.length()) {
+            return false;
+        } else if (Files.isSameFile(storedFile.file().toPath(), reference)) {
+            return true;
+        } else {
+            return hash(new FileHandle(reference.toFile())).equals(storedFile.name());
+        }
+    }
+    
+    /**
+     * @param storedFile
+     * @return false if storedFile was modified after it was stored.
+     * @throws IOException 
+     */
+    private boolean isIntact(FileHandle storedFile) throws IOException {
+        FileHandle refsFile = storedFile.sibling(storedFile.name() + ".refs");
+        if (refsFile.exists()) {
+            String[] lines = refsFile.readString("UTF-8").split("\n");
+            try {
+                if (Long.parseLong(lines[0].trim()) == storedFile.lastModified()) {
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                //fall through to hashing the content
+            }
+        }
+        return hash(storedFile).equals(storedFile.name());
+    }
+    
+    private static Array<Path> readReferences(FileHandle storedFile) {
+        Array<Path> references = new Array<>();
+        FileHandle refsFile = storedFile.sibling(storedFile.name() + ".refs");
+        if (refsFile.exists()) {
+            String[] lines = refsFile.readString("UTF-8").split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                if (!lines[i].isEmpty()) {
+                    references.add(Paths.get(lines[i]));
+                }
+            }
+        }
+        return references;
+    }
+    
+    private static void writeReferences(FileHandle storedFile, Array<Path> references) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append(storedFile.lastModified()).append('\n');
+        for (Path reference : references) {
+            builder.append(reference).append('\n');
+        }
+        
+        FileHandle temp = storedFile.sibling(storedFile.name() + ".refs.tmp");
+        temp.writeString(builder.toString(), false, "UTF-8");
+        move(temp.file().toPath(), storedFile.sibling(storedFile.name() + ".refs").file().toPath());
+    }
+    
+    private static void delete(FileHandle storedFile) {
+        storedFile.delete();
+        storedFile.sibling(storedFile.name() + ".refs").delete();
+    }
+    
+    private static boolean createLink(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            //different volume or links are not supported
+            return false;
+        }
+    }
+    
+    /**
+     * Clones existing to clone with cp, which shares the blocks on file
+     * systems with copy-on-write support. Java has no API for this.
+     * @param clone
+     * @param existing
+     * @return false if the file system or platform doesn't support cloning.
+     * @throws IOException 
+     */
+    private static boolean createClone(Path clone, Path existing) throws IOException {
+        String os = System.getProperty("os.name").toLowerCase();
+        ProcessBuilder builder;
+        if (os.contains("mac")) {
+            builder = new ProcessBuilder("cp", "-c", existing.toString(), clone.toString());
+        } else if (os.contains("linux")) {
+            builder = new ProcessBuilder("cp", "--reflink=always", existing.toString(), clone.toString());
+        } else {
+            return false;
+        }
+        
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        try {
+            Process process = builder.start();
+            StreamUtils.copyStreamToByteArray(process.getInputStream());
+            if (process.waitFor() == 0) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            //cp is not available
+        }
+        Files.deleteIfExists(clone);
+        return false;
+    }
+    
+    private static void copyFile(Path source, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+        move(temp, target);
+    }
+    
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static String hash(FileHandle file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        
+        InputStream input = file.read();
+        try {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        } finally {
+            StreamUtils.closeQuietly(input);
+        }
+        
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
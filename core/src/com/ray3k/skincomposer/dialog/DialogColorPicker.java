@@ -26,6 +26,7 @@ package com.ray3k.skincomposer.dialog;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Event;
@@ -44,8 +45,6 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.DragListener;
-import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
 import com.ray3k.skincomposer.CheckerDrawable;
@@ -83,23 +82,23 @@ public class DialogColorPicker extends Dialog {
         this.main = main;
         this.listener = listener;
         
-        gradientAlpha = new GradientDrawable(new Color(1.0f, 0, 0, 0), new Color(1.0f, 0, 0, 0), Color.RED, Color.RED);
+        TextureRegion white = skin.getRegion("white");
+        gradientAlpha = new GradientDrawable(white, new Color(1.0f, 0, 0, 0), new Color(1.0f, 0, 0, 0), Color.RED, Color.RED);
         Vector3 v = rgbToHsb(selectedColor.r, selectedColor.g, selectedColor.b);
         Color temp = hsbToRgb(v.x * 360.0f, 1.0f, 1.0f);
-        gradientS = new GradientDrawable(Color.WHITE, temp, temp, Color.WHITE);
-        gradientB = new GradientDrawable(Color.BLACK, Color.BLACK, Color.CLEAR, Color.CLEAR);
+        gradientS = new GradientDrawable(white, Color.WHITE, temp, temp, Color.WHITE);
+        gradientB = new GradientDrawable(white, Color.BLACK, Color.BLACK, Color.CLEAR, Color.CLEAR);
         gradientSB = new StackedDrawable(gradientS, gradientB);
         
         hueGradient = new Array<>();
-        hueGradient.add(new GradientDrawable(Color.MAGENTA, Color.MAGENTA, Color.RED, Color.RED));
-        hueGradient.add(new GradientDrawable(Color.BLUE, Color.BLUE, Color.MAGENTA, Color.MAGENTA));
-        hueGradient.add(new GradientDrawable(Color.CYAN, Color.CYAN, Color.BLUE, Color.BLUE));
-        hueGradient.add(new GradientDrawable(Color.GREEN, Color.GREEN, Color.CYAN, Color.CYAN));
-        hueGradient.add(new GradientDrawable(Color.YELLOW, Color.YELLOW, Color.GREEN, Color.GREEN));
-        hueGradient.add(new GradientDrawable(Color.RED, Color.RED, Color.YELLOW, Color.YELLOW));
-        
-        Drawable tinted = ((TextureRegionDrawable) skin.getDrawable("white")).tint(Color.LIGHT_GRAY);
-        checker = new CheckerDrawable(skin.getDrawable("white"), tinted, 10.0f, 10.0f);
+        hueGradient.add(new GradientDrawable(white, Color.MAGENTA, Color.MAGENTA, Color.RED, Color.RED));
+        hueGradient.add(new GradientDrawable(white, Color.BLUE, Color.BLUE, Color.MAGENTA, Color.MAGENTA));
+        hueGradient.add(new GradientDrawable(white, Color.CYAN, Color.CYAN, Color.BLUE, Color.BLUE));
+        hueGradient.add(new GradientDrawable(white, Color.GREEN, Color.GREEN, Color.CYAN, Color.CYAN));
+        hueGradient.add(new GradientDrawable(white, Color.YELLOW, Color.YELLOW, Color.GREEN, Color.GREEN));
+        hueGradient.add(new GradientDrawable(white, Color.RED, Color.RED, Color.YELLOW, Color.YELLOW));
+        
+        checker = new CheckerDrawable(skin, Color.WHITE, Color.LIGHT_GRAY, 10.0f, 10.0f);
         alphaStack = new StackedDrawable(checker, gradientAlpha);
         
         Table root = getContentTable();
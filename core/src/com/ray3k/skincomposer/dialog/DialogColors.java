@@ -26,6 +26,7 @@ package com.ray3k.skincomposer.dialog;
 import com.ray3k.skincomposer.data.ColorData;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -45,7 +46,6 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Sort;
 import com.ray3k.skincomposer.Main;
 import com.ray3k.skincomposer.UndoableManager;
 import com.ray3k.skincomposer.UndoableManager.ColorUndoable;
@@ -54,11 +54,13 @@ import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.DrawableData;
 import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
+import com.ray3k.skincomposer.utils.ResourceIndex;
 import com.ray3k.skincomposer.utils.Utils;
-import java.util.Comparator;
 
 public class DialogColors extends Dialog {
     private Array<ColorData> colors;
+    private ResourceIndex<ColorData> resourceIndex;
+    private TextField filterField;
     private Table colorTable;
     private StyleProperty styleProperty;
     private CustomProperty customProperty;
@@ -94,6 +96,17 @@ public class DialogColors extends Dialog {
         this.listener = listener;
         this.selectingForTintedDrawable = selectingForTintedDrawable;
         colors = main.getJsonData().getColors();
+        resourceIndex = new ResourceIndex<>(new ResourceIndex.KeyProvider<ColorData>() {
+            @Override
+            public String getName(ColorData item) {
+                return item.getName();
+            }
+
+            @Override
+            public FileHandle getFile(ColorData item) {
+                return null;
+            }
+        });
         
         getContentTable().defaults().expandX();
         if (styleProperty != null || customProperty != null) {
@@ -138,7 +151,19 @@ public class DialogColors extends Dialog {
             }
         });
         imageButton.addListener(main.getHandListener());
-        table.add(imageButton).expandX().left();
+        table.add(imageButton);
+        
+        table.add(new Label("Filter: ", getSkin())).padLeft(20.0f);
+        filterField = new TextField("", getSkin());
+        filterField.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                refreshTable();
+                scrollPane.setScrollY(0.0f);
+            }
+        });
+        filterField.addListener(main.getIbeamListener());
+        table.add(filterField).expandX().left();
         getContentTable().add(table).left().expandX();
         getContentTable().row();
         colorTable = new Table();
@@ -170,6 +195,7 @@ public class DialogColors extends Dialog {
     public Dialog show(Stage stage) {
         Dialog dialog = super.show(stage);
         stage.setScrollFocus(scrollPane);
+        stage.setKeyboardFocus(filterField);
         return dialog;
     }
     
@@ -252,9 +278,10 @@ public class DialogColors extends Dialog {
     public void refreshTable() {
         colorTable.clear();
         
-        if (colors.size > 0) {
+        Array<ColorData> shownColors = resourceIndex.filter(colors, filterField.getText());
+        if (shownColors.size > 0) {
             colorTable.defaults().padTop(5.0f);
-            for (ColorData color : colors) {
+            for (ColorData color : shownColors) {
                 Button button = new Button(getSkin(), "color-base");
                 button.addListener(main.getHandListener());
                 Label label = new Label(color.toString(), getSkin(), "white");
@@ -375,6 +402,7 @@ public class DialogColors extends Dialog {
                     @Override
                     public void changed(ChangeListener.ChangeEvent event, Actor actor) {
                         colors.removeValue(deleteColor, true);
+                        resourceIndex.remove(deleteColor);
                         main.getProjectData().setChangesSaved(false);
                         
                         //clear style properties that use this color.
@@ -444,6 +472,8 @@ public class DialogColors extends Dialog {
                 colorTable.add(button).growX();
                 colorTable.row();
             }
+        } else if (colors.size > 0) {
+            colorTable.add(new Label("No colors match the filter", getSkin(), "required"));
         } else {
             colorTable.add(new Label("No colors have been set!", getSkin(), "required"));
         }
@@ -584,6 +614,7 @@ public class DialogColors extends Dialog {
         
         try {
             color.setName(newName);
+            resourceIndex.rename(color);
         } catch (ColorData.NameFormatException ex) {
             Gdx.app.error(getClass().getName(), "Error trying to rename a color.", ex);
             main.getDialogFactory().showDialogError("Name Error...","Error while naming a color.\\nPlease ensure name is formatted appropriately:\\nNo spaces, don't start with a number, - and _ acceptable.\n\nOpen log?");
@@ -621,13 +652,11 @@ public class DialogColors extends Dialog {
     protected void result(Object object) {
         if (styleProperty != null) {
             if (object instanceof ColorData) {
-                main.getProjectData().setChangesSaved(false);
                 ColorData color = (ColorData) object;
                 ColorUndoable undoable = new ColorUndoable(main.getRootTable(), main.getJsonData(), styleProperty, styleProperty.value, color.getName());
                 main.getUndoableManager().addUndoable(undoable, true);
             } else if (object instanceof Boolean) {
                 if ((boolean) object) {
-                    main.getProjectData().setChangesSaved(false);
                     ColorUndoable undoable = new ColorUndoable(main.getRootTable(), main.getJsonData(), styleProperty, styleProperty.value, null);
                     main.getUndoableManager().addUndoable(undoable, true);
                 } else {
@@ -649,14 +678,11 @@ public class DialogColors extends Dialog {
             }
         } else if (customProperty != null) {
             if (object instanceof ColorData) {
-                main.getProjectData().setChangesSaved(false);
                 ColorData color = (ColorData) object;
                 CustomColorUndoable undoable = new UndoableManager.CustomColorUndoable(main, customProperty, color.getName());
                 main.getUndoableManager().addUndoable(undoable, true);
             } else if (object instanceof Boolean) {
                 if ((boolean) object) {
-                    main.getProjectData().setChangesSaved(false);
-
                     CustomColorUndoable undoable = new UndoableManager.CustomColorUndoable(main, customProperty, null);
                     main.getUndoableManager().addUndoable(undoable, true);
                     main.getRootTable().setStatusBarMessage("Emptied color for \"" + customProperty.getName() + "\"");
@@ -701,22 +727,12 @@ public class DialogColors extends Dialog {
     }
     
     private void sortFontsAZ() {
-        Sort.instance().sort(colors, new Comparator<ColorData>() {
-            @Override
-            public int compare(ColorData o1, ColorData o2) {
-                return o1.toString().compareToIgnoreCase(o2.toString());
-            }
-        });
+        resourceIndex.sort(colors, resourceIndex.getNameComparator());
         refreshTable();
     }
     
     private void sortFontsZA() {
-        Sort.instance().sort(colors, new Comparator<ColorData>() {
-            @Override
-            public int compare(ColorData o1, ColorData o2) {
-                return o1.toString().compareToIgnoreCase(o2.toString()) * -1;
-            }
-        });
+        resourceIndex.sort(colors, resourceIndex.getNameComparator().reversed());
         refreshTable();
     }
     
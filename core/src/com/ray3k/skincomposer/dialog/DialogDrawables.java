@@ -40,7 +40,6 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
 import com.badlogic.gdx.scenes.scene2d.ui.Container;
 import com.badlogic.gdx.scenes.scene2d.ui.Dialog;
-import com.badlogic.gdx.scenes.scene2d.ui.HorizontalGroup;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
@@ -57,21 +56,26 @@ import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectMap.Values;
 import com.badlogic.gdx.utils.Scaling;
-import com.badlogic.gdx.utils.Sort;
 import com.ray3k.skincomposer.FilesDroppedListener;
 import com.ray3k.skincomposer.Main;
 import com.ray3k.skincomposer.Undoable;
 import com.ray3k.skincomposer.UndoableManager;
 import com.ray3k.skincomposer.UndoableManager.CustomDrawableUndoable;
 import com.ray3k.skincomposer.UndoableManager.DrawableUndoable;
+import com.ray3k.skincomposer.VirtualGrid;
 import com.ray3k.skincomposer.data.ColorData;
 import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.DrawableData;
 import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
+import com.ray3k.skincomposer.utils.ImageInfo;
+import com.ray3k.skincomposer.utils.ImageStats;
+import com.ray3k.skincomposer.utils.ResourceIndex;
 import com.ray3k.skincomposer.utils.Utils;
 import java.io.File;
 import java.util.Iterator;
@@ -88,9 +92,12 @@ public class DialogDrawables extends Dialog {
     private StyleProperty property;
     private CustomProperty customProperty;
     private Array<DrawableData> drawables;
+    private Array<DrawableData> shownDrawables;
+    private ResourceIndex<DrawableData> resourceIndex;
+    private TextField filterField;
     private ObjectMap<DrawableData, Drawable> drawablePairs;
     private TextureAtlas atlas;
-    private HorizontalGroup contentGroup;
+    private DrawableGrid drawableGrid;
     private FilesDroppedListener filesDroppedListener;
     private EventListener listener;
     private Main main;
@@ -131,6 +138,18 @@ public class DialogDrawables extends Dialog {
 
         drawablePairs = new ObjectMap<>();
         
+        resourceIndex = new ResourceIndex<>(new ResourceIndex.KeyProvider<DrawableData>() {
+            @Override
+            public String getName(DrawableData item) {
+                return item.name;
+            }
+
+            @Override
+            public FileHandle getFile(DrawableData item) {
+                return item.file;
+            }
+        });
+        
         gatherDrawables();
         
         produceAtlas();
@@ -241,6 +260,18 @@ public class DialogDrawables extends Dialog {
         textButton.addListener(main.getHandListener());
         table.add(textButton);
         
+        table.add("Filter:");
+        filterField = new TextField("", getSkin());
+        filterField.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                refreshDrawableDisplay();
+                scrollPane.setScrollY(0.0f);
+            }
+        });
+        filterField.addListener(main.getIbeamListener());
+        table.add(filterField);
+        
         table.add(new Label("Zoom:", getSkin())).right().expandX();
         zoomSlider = new Slider(0, 3, 1, false, getSkin());
         zoomSlider.addListener(new ChangeListener() {
@@ -253,11 +284,11 @@ public class DialogDrawables extends Dialog {
         table.add(zoomSlider);
         
         getContentTable().row();
-        contentGroup = new HorizontalGroup();
-        contentGroup.center().wrap(true).space(5.0f).wrapSpace(5.0f).rowAlign(Align.left);
-        scrollPane = new ScrollPane(contentGroup, getSkin());
+        drawableGrid = new DrawableGrid();
+        scrollPane = new ScrollPane(drawableGrid, getSkin());
         scrollPane.setFadeScrollBars(false);
         scrollPane.setFlickScroll(false);
+        scrollPane.setScrollingDisabled(true, false);
         getContentTable().add(scrollPane).grow();
         sortBySelectedMode();
         
@@ -277,152 +308,28 @@ public class DialogDrawables extends Dialog {
     public Dialog show(Stage stage, Action action) {
         Dialog dialog = super.show(stage, action);
         stage.setScrollFocus(scrollPane);
+        stage.setKeyboardFocus(filterField);
         validate();
         scrollPane.setScrollY(scrollPosition);
         return dialog;
     }
     
     private void refreshDrawableDisplay() {
-        contentGroup.clear();
+        shownDrawables = resourceIndex.filter(drawables, filterField.getText());
         
         if (drawables.size == 0) {
             Label label = new Label("No drawables have been added!", getSkin());
-            contentGroup.addActor(label);
-        }
-        
-        for (DrawableData drawable : drawables) {
-            Button drawableButton;
-            
-            if (property != null || customProperty != null) {
-                drawableButton = new Button(getSkin(), "color-base");
-                drawableButton.addListener(new ChangeListener() {
-                    @Override
-                    public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                        result(drawable);
-                        hide();
-                    }
-                });
-                drawableButton.addListener(main.getHandListener());
-            } else {
-                drawableButton = new Button(getSkin(), "color-base-static");
-            }
-            contentGroup.addActor(drawableButton);
-            
-            Table table = new Table();
-            drawableButton.add(table).width(sizes[MathUtils.floor(zoomSlider.getValue())]).height(sizes[MathUtils.floor(zoomSlider.getValue())]);
-
-            ClickListener fixDuplicateTouchListener = new ClickListener() {
-                @Override
-                public boolean touchDown(InputEvent event, float x, float y, int pointer, int button) {
-                    event.setBubbles(false);
-                    return super.touchDown(event, x, y, pointer, button);
-                }
-            };
-            
-            //color wheel
-            Button button = new Button(getSkin(), "colorwheel");
-            button.addListener(new ChangeListener() {
-                @Override
-                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                    newTintedDrawable(drawable);
-                    event.setBubbles(false);
-                }
-            });
-            button.addListener(fixDuplicateTouchListener);
-            if (property == null && customProperty == null) {
-                button.addListener(main.getHandListener());
-            }
-            table.add(button);
-            
-            TextTooltip toolTip = new TextTooltip("New Tinted Drawable", main.getTooltipManager(), getSkin());
-            button.addListener(toolTip);
-
-            //swatches
-            button = new Button(getSkin(), "swatches");
-            button.addListener(new ChangeListener() {
-                @Override
-                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                    colorSwatchesDialog(drawable);
-                    event.setBubbles(false);
-                }
-            });
-            button.addListener(fixDuplicateTouchListener);
-            if (property == null && customProperty == null) {
-                button.addListener(main.getHandListener());
-            }
-            table.add(button);
-            
-            toolTip = new TextTooltip("Tinted Drawable from Colors", main.getTooltipManager(), getSkin());
-            button.addListener(toolTip);
-            
-            //rename (ONLY FOR TINTS)
-            if (drawable.tint != null || drawable.tintName != null) {
-                button = new Button(getSkin(), "settings-small");
-                button.addListener(new ChangeListener() {
-                    @Override
-                    public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                        renameDrawableDialog(drawable);
-                        event.setBubbles(false);
-                    }
-                });
-                button.addListener(fixDuplicateTouchListener);
-                if (property == null && customProperty == null) {
-                    button.addListener(main.getHandListener());
-                }
-                table.add(button);
-                
-                toolTip = new TextTooltip("Rename Tinted Drawable", main.getTooltipManager(), getSkin());
-                button.addListener(toolTip);
-            } else {
-                table.add();
-            }
-
-            //delete
-            button = new Button(getSkin(), "delete-small");
-            button.addListener(new ChangeListener() {
-                @Override
-                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                    deleteDrawable(drawable);
-                    event.setBubbles(false);
-                }
-            });
-            button.addListener(fixDuplicateTouchListener);
-            if (property == null && customProperty == null) {
-                button.addListener(main.getHandListener());
-            }
-            table.add(button).expandX().right();
-            
-            toolTip = new TextTooltip("Delete Drawable", main.getTooltipManager(), getSkin());
-            button.addListener(toolTip);
-
-            //preview
-            table.row();
-            Container bg = new Container();
-            bg.setClip(true);
-            bg.setBackground(getSkin().getDrawable("white"));
-            bg.setColor(drawable.bgColor);
-            Image image = new Image(drawablePairs.get(drawable));
-            if (MathUtils.isZero(zoomSlider.getValue())) {
-                image.setScaling(Scaling.fit);
-                bg.fill(false);
-            } else {
-                image.setScaling(Scaling.stretch);
-                bg.fill();
-            }
-            bg.setActor(image);
-            table.add(bg).colspan(4).grow();
-
-            //name
-            table.row();
-            Label label = new Label(drawable.name, getSkin());
-            label.setEllipsis("...");
-            label.setEllipsis(true);
             label.setAlignment(Align.center);
-            table.add(label).colspan(4).growX().width(sizes[MathUtils.floor(zoomSlider.getValue())]);
-            
-            //Tooltip
-            toolTip = new TextTooltip(drawable.name, main.getTooltipManager(), getSkin());
-            label.addListener(toolTip);
+            scrollPane.setWidget(label);
+        } else if (shownDrawables.size == 0) {
+            Label label = new Label("No drawables match the filter", getSkin());
+            label.setAlignment(Align.center);
+            scrollPane.setWidget(label);
+        } else {
+            if (scrollPane.getWidget() != drawableGrid) {
+                scrollPane.setWidget(drawableGrid);
+            }
+            drawableGrid.refresh(MathUtils.floor(zoomSlider.getValue()));
         }
     }
     
@@ -600,6 +507,7 @@ public class DialogDrawables extends Dialog {
     private void renameDrawable(DrawableData drawable, String name) {
         String oldName = drawable.name;
         drawable.name = name;
+        resourceIndex.rename(drawable);
 
         main.getUndoableManager().clearUndoables();
         updateStyleValuesForRename(oldName, name);
@@ -714,7 +622,7 @@ public class DialogDrawables extends Dialog {
      * Sorts alphabetically from A to Z.
      */
     private void sortDrawablesAZ() {
-        Sort.instance().sort(drawables, (DrawableData o1, DrawableData o2) -> o1.toString().compareToIgnoreCase(o2.toString()));
+        resourceIndex.sort(drawables, resourceIndex.getNameComparator());
         refreshDrawableDisplay();
     }
     
@@ -722,7 +630,7 @@ public class DialogDrawables extends Dialog {
      * Sorts alphabetically from Z to A.
      */
     private void sortDrawablesZA() {
-        Sort.instance().sort(drawables, (DrawableData o1, DrawableData o2) -> o1.toString().compareToIgnoreCase(o2.toString()) * -1);
+        resourceIndex.sort(drawables, resourceIndex.getNameComparator().reversed());
         refreshDrawableDisplay();
     }
     
@@ -730,15 +638,7 @@ public class DialogDrawables extends Dialog {
      * Sorts by modified date with oldest first.
      */
     private void sortDrawablesOldest() {
-        Sort.instance().sort(drawables, (DrawableData o1, DrawableData o2) -> {
-            if (o1.file.lastModified() < o2.file.lastModified()) {
-                return -1;
-            } else if (o1.file.lastModified() > o2.file.lastModified()) {
-                return 1;
-            } else {
-                return 0;
-            }
-        });
+        resourceIndex.sort(drawables, resourceIndex.getDateComparator());
         refreshDrawableDisplay();
     }
     
@@ -746,15 +646,7 @@ public class DialogDrawables extends Dialog {
      * Sorts by modified date with newest first.
      */
     private void sortDrawablesNewest() {
-        Sort.instance().sort(drawables, (DrawableData o1, DrawableData o2) -> {
-            if (o1.file.lastModified() < o2.file.lastModified()) {
-                return 1;
-            } else if (o1.file.lastModified() > o2.file.lastModified()) {
-                return -1;
-            } else {
-                return 0;
-            }
-        });
+        resourceIndex.sort(drawables, resourceIndex.getDateComparator().reversed());
         refreshDrawableDisplay();
     }
     
@@ -832,6 +724,32 @@ public class DialogDrawables extends Dialog {
         dialog.show(getStage());
     }
     
+    /**
+     * Shows the files that were not added because they can't be read or are
+     * larger than the maximum texture size.
+     */
+    private void showDrawableSizeError(Array<FileHandle> files, int maxWidth, int maxHeight) {
+        Dialog dialog = new Dialog("Error...", getSkin(), "bg");
+        
+        dialog.getTitleTable().padLeft(5.0f);
+        dialog.getContentTable().padLeft(10.0f).padRight(10.0f).padTop(5.0f);
+        dialog.getButtonTable().padBottom(15.0f);
+        
+        String names = "";
+        for (int i = 0; i < files.size && i < 10; i++) {
+            names += "\n" + files.get(i).name();
+        }
+        if (files.size > 10) {
+            names += "\n(" + (files.size - 10) + " more)";
+        }
+        
+        Label label = new Label("Unable to add the following drawables.\nEnsure that they are valid images less than\nthe max texture dimensions (" + maxWidth + "x" + maxHeight + ").\n" + names, getSkin());
+        label.setAlignment(Align.center);
+        dialog.text(label);
+        dialog.button("OK");
+        dialog.show(getStage());
+    }
+    
     private void newDrawableDialog() {
         String defaultPath = "";
         
@@ -869,6 +787,34 @@ public class DialogDrawables extends Dialog {
     }
     
     private void drawablesSelected(Array<FileHandle> files) {
+        //check the image headers in parallel before anything is decoded
+        files = new Array<>(files);
+        Array<ImageInfo> infos = ImageInfo.getAll(files);
+        int maxWidth = 1024;
+        int maxHeight = 1024;
+        FileHandle defaultsFile = Gdx.files.local("texturepacker/defaults.json");
+        if (defaultsFile.exists()) {
+            JsonValue val = new JsonReader().parse(defaultsFile);
+            maxWidth = val.getInt("maxWidth", maxWidth);
+            maxHeight = val.getInt("maxHeight", maxHeight);
+        }
+        
+        Array<FileHandle> invalidFiles = new Array<>();
+        for (int i = files.size - 1; i >= 0; i--) {
+            ImageInfo info = infos.get(i);
+            if (info == null || !info.fitsBox(maxWidth, maxHeight)) {
+                invalidFiles.add(files.removeIndex(i));
+            }
+        }
+        
+        if (invalidFiles.size > 0) {
+            showDrawableSizeError(invalidFiles, maxWidth, maxHeight);
+        }
+        
+        if (files.size == 0) {
+            return;
+        }
+        
         main.getAtlasData().atlasCurrent = false;
         Array<DrawableData> backup = new Array<>(main.getAtlasData().getDrawables());
         Array<FileHandle> unhandledFiles = new Array<>();
@@ -933,6 +879,11 @@ public class DialogDrawables extends Dialog {
      * @param filesToProcess 
      */
     private void finalizeDrawables(Array<DrawableData> backup, Array<FileHandle> filesToProcess) {
+        //analyze the images in parallel before DrawableData asks for them
+        for (FileHandle file : filesToProcess) {
+            ImageStats.prefetch(file);
+        }
+        
         for (FileHandle file : filesToProcess) {
             DrawableData data = new DrawableData(file);
             if (!checkIfNameExists(data.name)) {
@@ -1132,7 +1083,6 @@ public class DialogDrawables extends Dialog {
             } else if (object instanceof Boolean) {
                 if (property != null) {
                     if ((boolean) object) {
-                        main.getProjectData().setChangesSaved(false);
                         DrawableUndoable undoable =
                                 new DrawableUndoable(main.getRootTable(), main.getAtlasData(),
                                         property, property.value, null);
@@ -1157,7 +1107,6 @@ public class DialogDrawables extends Dialog {
                     }
                 } else if (customProperty != null) {
                     if ((boolean) object) {
-                        main.getProjectData().setChangesSaved(false);
                         CustomDrawableUndoable undoable = new CustomDrawableUndoable(main, customProperty, null);
                         main.getUndoableManager().addUndoable(undoable, true);
                         main.getRootTable().setStatusBarMessage("Drawable emptied for \"" + customProperty.getName() + "\"");
@@ -1188,4 +1137,199 @@ public class DialogDrawables extends Dialog {
             listener = null;
         }
     }
+    
+    /**
+     * Shows the drawables in a grid that only creates cells for the visible
+     * rows. Cells that scroll out of view are kept and reused for other
+     * drawables.
+     */
+    private class DrawableGrid extends VirtualGrid<DrawableCell> {
+        private int zoom;
+
+        public DrawableGrid() {
+            super(5.0f);
+            zoom = -1;
+        }
+        
+        /**
+         * Rebinds the visible cells after the drawables changed. Cells are
+         * recreated if the zoom level is different.
+         * @param zoom index into sizes
+         */
+        public void refresh(int zoom) {
+            if (zoom != this.zoom) {
+                this.zoom = zoom;
+                clearCells();
+                
+                DrawableCell cell = new DrawableCell(zoom);
+                cell.setDrawable(shownDrawables.first());
+                setCellSize(cell.getPrefWidth(), cell.getPrefHeight());
+            } else {
+                refresh();
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return shownDrawables.size;
+        }
+
+        @Override
+        protected DrawableCell newCell() {
+            return new DrawableCell(zoom);
+        }
+
+        @Override
+        protected void bindCell(DrawableCell cell, int index) {
+            cell.setDrawable(shownDrawables.get(index));
+        }
+    }
+    
+    /**
+     * A reusable grid cell showing one drawable with its tool buttons, preview
+     * and name.
+     */
+    private class DrawableCell extends Button {
+        private DrawableData drawable;
+        private final Button renameButton;
+        private final Container bg;
+        private final Image image;
+        private final Label label;
+        private final TextTooltip nameToolTip;
+
+        public DrawableCell(int zoom) {
+            super(DialogDrawables.this.getSkin(), property != null || customProperty != null ? "color-base" : "color-base-static");
+            
+            if (property != null || customProperty != null) {
+                addListener(new ChangeListener() {
+                    @Override
+                    public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                        result(drawable);
+                        hide();
+                    }
+                });
+                addListener(main.getHandListener());
+            }
+            
+            Table table = new Table();
+            add(table).width(sizes[zoom]).height(sizes[zoom]);
+
+            ClickListener fixDuplicateTouchListener = new ClickListener() {
+                @Override
+                public boolean touchDown(InputEvent event, float x, float y, int pointer, int button) {
+                    event.setBubbles(false);
+                    return super.touchDown(event, x, y, pointer, button);
+                }
+            };
+            
+            //color wheel
+            Button button = new Button(getSkin(), "colorwheel");
+            button.addListener(new ChangeListener() {
+                @Override
+                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                    newTintedDrawable(drawable);
+                    event.setBubbles(false);
+                }
+            });
+            button.addListener(fixDuplicateTouchListener);
+            if (property == null && customProperty == null) {
+                button.addListener(main.getHandListener());
+            }
+            table.add(button);
+            
+            TextTooltip toolTip = new TextTooltip("New Tinted Drawable", main.getTooltipManager(), getSkin());
+            button.addListener(toolTip);
+
+            //swatches
+            button = new Button(getSkin(), "swatches");
+            button.addListener(new ChangeListener() {
+                @Override
+                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                    colorSwatchesDialog(drawable);
+                    event.setBubbles(false);
+                }
+            });
+            button.addListener(fixDuplicateTouchListener);
+            if (property == null && customProperty == null) {
+                button.addListener(main.getHandListener());
+            }
+            table.add(button);
+            
+            toolTip = new TextTooltip("Tinted Drawable from Colors", main.getTooltipManager(), getSkin());
+            button.addListener(toolTip);
+            
+            //rename (ONLY FOR TINTS)
+            renameButton = new Button(getSkin(), "settings-small");
+            renameButton.addListener(new ChangeListener() {
+                @Override
+                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                    renameDrawableDialog(drawable);
+                    event.setBubbles(false);
+                }
+            });
+            renameButton.addListener(fixDuplicateTouchListener);
+            if (property == null && customProperty == null) {
+                renameButton.addListener(main.getHandListener());
+            }
+            table.add(renameButton);
+
+            toolTip = new TextTooltip("Rename Tinted Drawable", main.getTooltipManager(), getSkin());
+            renameButton.addListener(toolTip);
+
+            //delete
+            button = new Button(getSkin(), "delete-small");
+            button.addListener(new ChangeListener() {
+                @Override
+                public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                    deleteDrawable(drawable);
+                    event.setBubbles(false);
+                }
+            });
+            button.addListener(fixDuplicateTouchListener);
+            if (property == null && customProperty == null) {
+                button.addListener(main.getHandListener());
+            }
+            table.add(button).expandX().right();
+            
+            toolTip = new TextTooltip("Delete Drawable", main.getTooltipManager(), getSkin());
+            button.addListener(toolTip);
+
+            //preview
+            table.row();
+            bg = new Container();
+            bg.setClip(true);
+            bg.setBackground(getSkin().getDrawable("white"));
+            image = new Image();
+            if (zoom == 0) {
+                image.setScaling(Scaling.fit);
+                bg.fill(false);
+            } else {
+                image.setScaling(Scaling.stretch);
+                bg.fill();
+            }
+            bg.setActor(image);
+            table.add(bg).colspan(4).grow();
+
+            //name
+            table.row();
+            label = new Label("", getSkin());
+            label.setEllipsis("...");
+            label.setEllipsis(true);
+            label.setAlignment(Align.center);
+            table.add(label).colspan(4).growX().width(sizes[zoom]);
+            
+            //Tooltip
+            nameToolTip = new TextTooltip("", main.getTooltipManager(), getSkin());
+            label.addListener(nameToolTip);
+        }
+        
+        public void setDrawable(DrawableData drawable) {
+            this.drawable = drawable;
+            renameButton.setVisible(drawable.tint != null || drawable.tintName != null);
+            bg.setColor(drawable.bgColor);
+            image.setDrawable(drawablePairs.get(drawable));
+            label.setText(drawable.name);
+            nameToolTip.getActor().setText(drawable.name);
+        }
+    }
 }
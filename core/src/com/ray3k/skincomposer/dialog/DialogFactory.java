@@ -152,6 +152,11 @@ public class DialogFactory {
         showDialogFonts((StyleProperty)null);
     }
 
+    public void showStyleGallery() {
+        DialogStyleGallery dialog = new DialogStyleGallery(main);
+        dialog.show(main.getStage());
+    }
+
     public void showSettings() {
         DialogSettings dialog = new DialogSettings("", "dialog", main);
         dialog.show(main.getStage());
@@ -305,7 +310,18 @@ public class DialogFactory {
             @Override
             protected void result(Object object) {
                 if ((Boolean) object) {
-                    main.getUndoableManager().addUndoable(new DeleteStyleUndoable(styleData, main), true);
+                    //references to the style are reset in the same step, so
+                    //undo restores them along with the style
+                    UndoableManager undoableManager = main.getUndoableManager();
+                    undoableManager.beginTransaction("Delete Style \"" + styleData.name + "\"");
+                    try {
+                        for (StyleProperty property : main.getJsonData().getStyleReferences(styleData)) {
+                            undoableManager.addUndoable(new UndoableManager.SelectBoxUndoable(main.getRootTable(), property, (String) property.value, "default"), true);
+                        }
+                        undoableManager.addUndoable(new DeleteStyleUndoable(styleData, main), true);
+                    } finally {
+                        undoableManager.commitTransaction();
+                    }
                 }
             }
         };
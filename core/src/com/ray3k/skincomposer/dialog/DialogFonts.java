@@ -32,6 +32,7 @@ import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.EventListener;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -39,6 +40,7 @@ import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
+import com.badlogic.gdx.scenes.scene2d.ui.Container;
 import com.badlogic.gdx.scenes.scene2d.ui.Dialog;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
@@ -53,9 +55,10 @@ import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.Sort;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.OrderedMap;
 import com.ray3k.skincomposer.FilesDroppedListener;
+import com.ray3k.skincomposer.FontMetadataCache.FontMetadata;
 import com.ray3k.skincomposer.Main;
 import com.ray3k.skincomposer.UndoableManager.CustomFontUndoable;
 import com.ray3k.skincomposer.UndoableManager.FontUndoable;
@@ -65,19 +68,26 @@ import com.ray3k.skincomposer.data.DrawableData;
 import com.ray3k.skincomposer.data.FontData;
 import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
+import com.ray3k.skincomposer.utils.ResourceIndex;
 import com.ray3k.skincomposer.utils.Utils;
 import java.io.File;
 import java.util.Iterator;
 import java.util.List;
 
 public class DialogFonts extends Dialog {
+    private static final String PREVIEW_TEXT = "Lorem Ipsum";
+    private static final int MAX_FONTS = 32;
     private StyleProperty styleProperty;
     private CustomProperty customProperty;
     private Array<FontData> fonts;
+    private ResourceIndex<FontData> resourceIndex;
+    private TextField filterField;
     private Array<DrawableData> drawables;
     private Table fontsTable;
     private SelectBox<String> selectBox;
-    private ObjectMap<FontData, BitmapFont> fontMap;
+    private OrderedMap<FontData, BitmapFont> fontMap;
+    private ObjectSet<FontData> frameFonts;
+    private long frameId;
     private TextureAtlas atlas;
     private EventListener listener;
     private FilesDroppedListener filesDroppedListener;
@@ -110,9 +120,21 @@ public class DialogFonts extends Dialog {
         this.listener = listener;
         
         fonts = main.getJsonData().getFonts();
+        resourceIndex = new ResourceIndex<>(new ResourceIndex.KeyProvider<FontData>() {
+            @Override
+            public String getName(FontData item) {
+                return item.getName();
+            }
+
+            @Override
+            public FileHandle getFile(FontData item) {
+                return item.file;
+            }
+        });
         drawables = main.getAtlasData().getDrawables();
 
-        fontMap = new ObjectMap<>();
+        fontMap = new OrderedMap<>();
+        frameFonts = new ObjectSet<>();
         produceAtlas();
         
         filesDroppedListener = (Array<FileHandle> files) -> {
@@ -182,7 +204,19 @@ public class DialogFonts extends Dialog {
             }
         });
         imageButton.addListener(main.getHandListener());
-        table.add(imageButton).expandX();
+        table.add(imageButton);
+        
+        table.add(new Label("Filter: ", getSkin())).padLeft(20.0f);
+        filterField = new TextField("", getSkin());
+        filterField.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                refreshTable();
+                scrollPane.setScrollY(0.0f);
+            }
+        });
+        filterField.addListener(main.getIbeamListener());
+        table.add(filterField).expandX().left();
         getContentTable().add(table).expandX().left();
         getContentTable().row();
 
@@ -212,6 +246,7 @@ public class DialogFonts extends Dialog {
     public Dialog show(Stage stage) {
         Dialog dialog = super.show(stage);
         stage.setScrollFocus(scrollPane);
+        stage.setKeyboardFocus(filterField);
         return dialog;
     }
 
@@ -246,15 +281,6 @@ public class DialogFonts extends Dialog {
                 produceAtlas();
                 fonts.add(font);
                 
-                Array<TextureRegion> regions = new Array<>();
-                for (String path : bitmapFontData.imagePaths) {
-                    FileHandle imageFile = new FileHandle(path);
-                    regions.add(atlas.findRegion(imageFile.nameWithoutExtension()));
-                }
-                fontMap.put(font, new BitmapFont(bitmapFontData, regions, true));
-                
-                
-                
                 sortBySelectedMode();
                 refreshTable();
             } catch (Exception e) {
@@ -271,10 +297,13 @@ public class DialogFonts extends Dialog {
         fontsTable.clear();
         fontsTable.defaults().growX().pad(5.0f);
 
+        Array<FontData> shownFonts = resourceIndex.filter(fonts, filterField.getText());
         if (fonts.size == 0) {
             fontsTable.add(new Label("No fonts have been set!", getSkin()));
+        } else if (shownFonts.size == 0) {
+            fontsTable.add(new Label("No fonts match the filter", getSkin()));
         } else {
-            for (FontData font : fonts) {
+            for (FontData font : shownFonts) {
                 Button button = new Button(getSkin(), "color-base");
                 Label label = new Label(font.getName(), getSkin());
                 label.setTouchable(Touchable.disabled);
@@ -303,27 +332,17 @@ public class DialogFonts extends Dialog {
                 TextTooltip toolTip = new TextTooltip("Rename Font", main.getTooltipManager(), getSkin());
                 renameButton.addListener(toolTip);
                 
-                LabelStyle style = new LabelStyle();
-                style.font = fontMap.get(font);
-                style.fontColor = Color.WHITE;
-                label = new Label("Lorem Ipsum", style);
-                label.setAlignment(Align.center);
-                label.setTouchable(Touchable.disabled);
+                FontMetadata metadata = main.getFontMetadataCache().get(font.file, PREVIEW_TEXT);
                 Table bg = new Table(getSkin());
                 bg.setBackground("white");
-                BitmapFontData bf = new BitmapFontData(font.file, false);
-                if (bf.imagePaths.length > 0) {
-                    FileHandle file = new FileHandle(bf.imagePaths[0]);
-                    if (!file.exists()) {
-                        file = bf.fontFile.sibling(bf.fontFile.nameWithoutExtension() + ".png");
-                    }
-                    if (Utils.brightness(Utils.averageEdgeColor(file)) < .5f) {
+                if (metadata.getPageFiles().length > 0) {
+                    if (metadata.getBrightness() < .5f) {
                         bg.setColor(Color.WHITE);
                     } else {
                         bg.setColor(Color.BLACK);
                     }
                 }
-                bg.add(label).pad(5.0f).grow();
+                bg.add(new FontPreview(font, metadata)).pad(5.0f).grow();
                 button.add(bg).padLeft(15).growX();
 
                 Button closeButton = new Button(getSkin(), "delete-small");
@@ -332,6 +351,7 @@ public class DialogFonts extends Dialog {
                     @Override
                     public void changed(ChangeListener.ChangeEvent event, Actor actor) {
                         fonts.removeValue(deleteFont, true);
+                        resourceIndex.remove(deleteFont);
                         main.getProjectData().setChangesSaved(false);
                         BitmapFontData bitmapFontData = new BitmapFontData(deleteFont.file, false);
                         for (String path : bitmapFontData.imagePaths) {
@@ -486,6 +506,7 @@ public class DialogFonts extends Dialog {
         
         try {
             font.setName(newName);
+            resourceIndex.rename(font);
         } catch (FontData.NameFormatException ex) {
             Gdx.app.error(getClass().getName(), "Error trying to rename a font.", ex);
             main.getDialogFactory().showDialogError("Rename Font Error...", "Error trying to rename a font.\n\nOpen log?");
@@ -505,7 +526,6 @@ public class DialogFonts extends Dialog {
     protected void result(Object object) {
         if (styleProperty != null) {
             if (object instanceof FontData) {
-                main.getProjectData().setChangesSaved(false);
                 FontData font = (FontData) object;
                 FontUndoable undoable = new FontUndoable(main.getRootTable(),
                         main.getJsonData(), styleProperty, styleProperty.value, font.getName());
@@ -537,7 +557,6 @@ public class DialogFonts extends Dialog {
             }
         } else if (customProperty != null) {
             if (object instanceof FontData) {
-                main.getProjectData().setChangesSaved(false);
                 FontData font = (FontData) object;
                 CustomFontUndoable undoable = new CustomFontUndoable(main, customProperty, font.getName());
                 main.getUndoableManager().addUndoable(undoable, true);
@@ -590,39 +609,22 @@ public class DialogFonts extends Dialog {
     }
 
     private void sortFontsAZ() {
-        Sort.instance().sort(fonts, (FontData o1, FontData o2) -> o1.toString().compareToIgnoreCase(o2.toString()));
+        resourceIndex.sort(fonts, resourceIndex.getNameComparator());
         refreshTable();
     }
 
     private void sortFontsZA() {
-        Sort.instance().sort(fonts, (FontData o1, FontData o2) -> o1.toString().compareToIgnoreCase(o2.toString()) * -1);
+        resourceIndex.sort(fonts, resourceIndex.getNameComparator().reversed());
         refreshTable();
     }
 
     private void sortFontsOldest() {
-        Sort.instance().sort(fonts, (FontData o1, FontData o2) -> {
-            if (o1.file.lastModified() < o2.file.lastModified()) {
-                return -1;
-            } else if (o1.file.lastModified() > o2.file.lastModified()) {
-                return 1;
-            } else {
-                return 0;
-            }
-        });
-
+        resourceIndex.sort(fonts, resourceIndex.getDateComparator());
         refreshTable();
     }
 
     private void sortFontsNewest() {
-        Sort.instance().sort(fonts, (FontData o1, FontData o2) -> {
-            if (o1.file.lastModified() < o2.file.lastModified()) {
-                return 1;
-            } else if (o1.file.lastModified() > o2.file.lastModified()) {
-                return -1;
-            } else {
-                return 0;
-            }
-        });
+        resourceIndex.sort(fonts, resourceIndex.getDateComparator().reversed());
         refreshTable();
     }
 
@@ -641,6 +643,12 @@ public class DialogFonts extends Dialog {
 
     private boolean produceAtlas() {
         try {
+            //fonts refer to regions of the previous atlas
+            for (BitmapFont font : fontMap.values()) {
+                font.dispose();
+            }
+            fontMap.clear();
+            
             if (atlas != null) {
                 atlas.dispose();
                 atlas = null;
@@ -651,22 +659,6 @@ public class DialogFonts extends Dialog {
                 main.getAtlasData().atlasCurrent = true;
             }
             atlas = main.getAtlasData().getAtlas();
-
-            for (FontData font : fonts) {
-                BitmapFontData fontData = new BitmapFontData(font.file, false);
-                Array<TextureRegion> regions = new Array<>();
-                for (String path : fontData.imagePaths) {
-                    FileHandle file = new FileHandle(path);
-                    if (!file.exists()) {
-                        file = fontData.fontFile.sibling(fontData.fontFile.nameWithoutExtension() + ".png");
-                    }
-                    TextureRegion region = atlas.findRegion(file.nameWithoutExtension());
-                    if (region != null) {
-                        regions.add(region);
-                    }
-                }
-                fontMap.put(font, new BitmapFont(fontData, regions, true));
-            }
             return true;
         } catch (Exception e) {
             Gdx.app.error(getClass().getName(), "Error while attempting to generate drawables.", e);
@@ -675,6 +667,88 @@ public class DialogFonts extends Dialog {
         }
     }
     
+    /**
+     * Returns the font for fontData, creating it if necessary. Only the most
+     * recently used fonts are kept, the oldest are disposed. Fonts used in the
+     * current frame are never disposed, so more than MAX_FONTS may be kept
+     * while that many previews are in view.
+     * @param fontData
+     * @return 
+     */
+    private BitmapFont getFont(FontData fontData) {
+        if (frameId != Gdx.graphics.getFrameId()) {
+            frameId = Gdx.graphics.getFrameId();
+            frameFonts.clear();
+        }
+        frameFonts.add(fontData);
+        
+        BitmapFont font = fontMap.remove(fontData);
+        if (font == null) {
+            BitmapFontData bitmapFontData = new BitmapFontData(fontData.file, false);
+            Array<TextureRegion> regions = new Array<>();
+            for (FileHandle file : main.getFontMetadataCache().get(fontData.file, PREVIEW_TEXT).getPageFiles()) {
+                TextureRegion region = atlas.findRegion(file.nameWithoutExtension());
+                if (region != null) {
+                    regions.add(region);
+                }
+            }
+            font = new BitmapFont(bitmapFontData, regions, true);
+        }
+        fontMap.put(fontData, font);
+        
+        //fonts are ordered by last use, once the oldest was used this frame all are
+        while (fontMap.size > MAX_FONTS && !frameFonts.contains(fontMap.orderedKeys().first())) {
+            fontMap.remove(fontMap.orderedKeys().first()).dispose();
+        }
+        return font;
+    }
+    
+    /**
+     * Shows the preview text of a font. The BitmapFont is only created once
+     * the preview is scrolled into view. Until then the preview reserves the
+     * size of the text measured from the cached glyph metrics.
+     */
+    private class FontPreview extends Container<Label> {
+        private final FontData fontData;
+        private final Vector2 temp;
+
+        public FontPreview(FontData fontData, FontMetadata metadata) {
+            this.fontData = fontData;
+            temp = new Vector2();
+            minSize(metadata.getPreviewWidth(), metadata.getPreviewHeight());
+            setTouchable(Touchable.disabled);
+        }
+
+        @Override
+        public void act(float delta) {
+            if (isInView()) {
+                BitmapFont font = getFont(fontData);
+                if (getActor() == null || getActor().getStyle().font != font) {
+                    LabelStyle style = new LabelStyle();
+                    style.font = font;
+                    style.fontColor = Color.WHITE;
+                    Label label = new Label(PREVIEW_TEXT, style);
+                    label.setAlignment(Align.center);
+                    label.setTouchable(Touchable.disabled);
+                    setActor(label);
+                }
+            } else if (getActor() != null && fontMap.get(fontData) != getActor().getStyle().font) {
+                //the font has been disposed
+                setActor(null);
+            }
+            super.act(delta);
+        }
+        
+        private boolean isInView() {
+            if (getStage() == null) {
+                return false;
+            }
+            
+            localToAscendantCoordinates(scrollPane, temp.set(0.0f, 0.0f));
+            return temp.y + getHeight() >= 0.0f && temp.y <= scrollPane.getHeight();
+        }
+    }
+    
     private void newFontDialog() {
         String defaultPath = "";
         
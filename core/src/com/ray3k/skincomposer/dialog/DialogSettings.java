@@ -39,18 +39,26 @@ import com.ray3k.skincomposer.Spinner.Orientation;
 import com.ray3k.skincomposer.utils.Utils;
 
 public class DialogSettings extends Dialog {
-    private Integer maxUndos;
+    private Integer undoMemory;
+    private Integer autosaveInterval;
     private boolean resourcesRelative;
+    private boolean binaryFormat;
     private boolean allowingWelcome;
+    private boolean loadingInBackground;
+    private boolean idleRendering;
     private final Main main;
 
     public DialogSettings(String title, String windowStyleName, Main main) {
         super(title, main.getSkin(), windowStyleName);
         this.main = main;
 
-        maxUndos = main.getProjectData().getMaxUndos();
+        undoMemory = main.getProjectData().getUndoMemory();
+        autosaveInterval = main.getProjectData().getAutosaveInterval();
         resourcesRelative = main.getProjectData().areResourcesRelative();
+        binaryFormat = main.getProjectData().isBinaryFormat();
         allowingWelcome = main.getProjectData().isAllowingWelcome();
+        loadingInBackground = main.getProjectData().isLoadingInBackground();
+        idleRendering = main.getProjectData().isIdleRendering();
         setFillParent(true);
 
         populate();
@@ -62,9 +70,15 @@ public class DialogSettings extends Dialog {
 
         if ((boolean) object) {
             main.getProjectData().setChangesSaved(false);
-            main.getProjectData().setMaxUndos(maxUndos);
+            main.getProjectData().setUndoMemory(undoMemory);
             main.getProjectData().setResourcesRelative(resourcesRelative);
+            main.getProjectData().setBinaryFormat(binaryFormat);
             main.getProjectData().setAllowingWelcome(allowingWelcome);
+            main.getProjectData().setLoadingInBackground(loadingInBackground);
+            main.getProjectData().setIdleRendering(idleRendering);
+            Gdx.graphics.setContinuousRendering(!idleRendering);
+            main.getProjectData().setAutosaveInterval(autosaveInterval);
+            main.getAutosaveService().setInterval(autosaveInterval);
             main.getUndoableManager().clearUndoables();
         }
     }
@@ -173,22 +187,22 @@ public class DialogSettings extends Dialog {
         t.add(textButton).colspan(2);
 
         t.row();
-        label = new Label("Max Number of Undos: ", main.getSkin());
+        label = new Label("Undo History (KB): ", main.getSkin());
         t.add(label).right().padTop(10.0f);
-        Spinner spinner3 = new Spinner(main.getProjectData().getMaxUndos(), 1.0, true, Orientation.HORIZONTAL, getSkin());
-        spinner3.setMinimum(1.0);
-        spinner3.setMaximum(100.0);
+        Spinner spinner3 = new Spinner(main.getProjectData().getUndoMemory(), 64.0, true, Orientation.HORIZONTAL, getSkin());
+        spinner3.setMinimum(64.0);
+        spinner3.setMaximum(65536.0);
         spinner3.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                maxUndos = (int) spinner3.getValue();
+                undoMemory = (int) spinner3.getValue();
             }
         });
         spinner3.addListener(new FocusListener() {
             @Override
             public void keyboardFocusChanged(FocusListener.FocusEvent event,
                     Actor actor, boolean focused) {
-                maxUndos = (int) spinner3.getValue();
+                undoMemory = (int) spinner3.getValue();
             }
 
         });
@@ -197,6 +211,31 @@ public class DialogSettings extends Dialog {
         spinner3.getButtonPlus().addListener(main.getHandListener());
         t.add(spinner3).minWidth(150.0f).left().padTop(10.0f);
         
+        t.row();
+        label = new Label("Autosave Minutes (0 = off): ", main.getSkin());
+        t.add(label).right().padTop(10.0f);
+        Spinner spinner4 = new Spinner(main.getProjectData().getAutosaveInterval(), 1.0, true, Orientation.HORIZONTAL, getSkin());
+        spinner4.setMinimum(0.0);
+        spinner4.setMaximum(60.0);
+        spinner4.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                autosaveInterval = (int) spinner4.getValue();
+            }
+        });
+        spinner4.addListener(new FocusListener() {
+            @Override
+            public void keyboardFocusChanged(FocusListener.FocusEvent event,
+                    Actor actor, boolean focused) {
+                autosaveInterval = (int) spinner4.getValue();
+            }
+
+        });
+        spinner4.getTextField().addListener(main.getIbeamListener());
+        spinner4.getButtonMinus().addListener(main.getHandListener());
+        spinner4.getButtonPlus().addListener(main.getHandListener());
+        t.add(spinner4).minWidth(150.0f).left().padTop(10.0f);
+        
         t.row();
         final ImageTextButton checkBox = new ImageTextButton("Keep resources relative?", getSkin(), "checkbox");
         checkBox.setChecked(resourcesRelative);
@@ -208,6 +247,17 @@ public class DialogSettings extends Dialog {
         });
         t.add(checkBox).padTop(10.0f).colspan(2);
         
+        t.row();
+        final ImageTextButton binaryCheckBox = new ImageTextButton("Save in compact binary format?", getSkin(), "checkbox");
+        binaryCheckBox.setChecked(binaryFormat);
+        binaryCheckBox.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                binaryFormat = binaryCheckBox.isChecked();
+            }
+        });
+        t.add(binaryCheckBox).padTop(10.0f).colspan(2);
+        
         t.row();
         final ImageTextButton welcomeCheckBox = new ImageTextButton("Show welcome screen?", getSkin(), "checkbox");
         welcomeCheckBox.setChecked(allowingWelcome);
@@ -218,6 +268,28 @@ public class DialogSettings extends Dialog {
             }
         });
         t.add(welcomeCheckBox).padTop(10.0f).colspan(2);
+        
+        t.row();
+        final ImageTextButton backgroundCheckBox = new ImageTextButton("Load previews in background?", getSkin(), "checkbox");
+        backgroundCheckBox.setChecked(loadingInBackground);
+        backgroundCheckBox.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                loadingInBackground = backgroundCheckBox.isChecked();
+            }
+        });
+        t.add(backgroundCheckBox).padTop(10.0f).colspan(2);
+        
+        t.row();
+        final ImageTextButton idleCheckBox = new ImageTextButton("Render only when needed?", getSkin(), "checkbox");
+        idleCheckBox.setChecked(idleRendering);
+        idleCheckBox.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                idleRendering = idleCheckBox.isChecked();
+            }
+        });
+        t.add(idleCheckBox).padTop(10.0f).colspan(2);
 
         button("OK", true);
         button("Cancel", false);
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.dialog;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Container;
+import com.badlogic.gdx.scenes.scene2d.ui.Dialog;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
+import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.VirtualGrid;
+import com.ray3k.skincomposer.data.StyleData;
+
+/**
+ * Shows the previews of every style of the selected class or of all classes in
+ * a grid. Only the cells that are scrolled into view are instantiated. The
+ * previews share the drawables, fonts and nested styles of the RootTable
+ * preview.
+ */
+public class DialogStyleGallery extends Dialog {
+    private static final float CELL_WIDTH = 220.0f;
+    private static final float CELL_HEIGHT = 160.0f;
+    private final Main main;
+    private final Array<GalleryEntry> entries;
+    private final SelectBox<String> scopeSelectBox;
+    private final ScrollPane scrollPane;
+    private final GalleryGrid grid;
+
+    public DialogStyleGallery(Main main) {
+        super("", main.getSkin(), "dialog");
+        this.main = main;
+        entries = new Array<>();
+        setFillParent(true);
+        
+        Table table = getContentTable();
+        table.defaults().pad(10.0f);
+        Label label = new Label("Style Gallery", getSkin(), "title");
+        table.add(label);
+        
+        table.row();
+        Table top = new Table();
+        top.add(new Label("Show: ", getSkin()));
+        scopeSelectBox = new SelectBox<>(getSkin());
+        scopeSelectBox.setItems("Selected Class", "All Classes");
+        scopeSelectBox.addListener(main.getHandListener());
+        scopeSelectBox.getList().addListener(main.getHandListener());
+        scopeSelectBox.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                refreshEntries();
+            }
+        });
+        top.add(scopeSelectBox);
+        table.add(top);
+        
+        table.row();
+        grid = new GalleryGrid();
+        scrollPane = new ScrollPane(grid, getSkin());
+        scrollPane.setFadeScrollBars(false);
+        scrollPane.setFlickScroll(false);
+        scrollPane.setScrollingDisabled(true, false);
+        table.add(scrollPane).grow();
+        
+        button("Close");
+        getButtonTable().getCells().first().getActor().addListener(main.getHandListener());
+        key(Keys.ESCAPE, false);
+        
+        refreshEntries();
+    }
+
+    @Override
+    public Dialog show(Stage stage) {
+        Dialog dialog = super.show(stage);
+        stage.setScrollFocus(scrollPane);
+        return dialog;
+    }
+    
+    private void refreshEntries() {
+        entries.clear();
+        main.getRootTable().refreshPreviewResources();
+        
+        boolean allClasses = scopeSelectBox.getSelectedIndex() == 1;
+        int classIndex = main.getRootTable().getClassSelectBox().getSelectedIndex();
+        for (int i = 0; i < Main.BASIC_CLASSES.length; i++) {
+            if (allClasses || i == classIndex) {
+                Class clazz = Main.BASIC_CLASSES[i];
+                for (StyleData styleData : main.getJsonData().getClassStyleMap().get(clazz)) {
+                    entries.add(new GalleryEntry(clazz, styleData));
+                }
+            }
+        }
+        
+        grid.clearCells();
+        scrollPane.setScrollY(0.0f);
+    }
+    
+    private Actor createCell(GalleryEntry entry, boolean showClass) {
+        Table cell = new Table();
+        cell.setClip(true);
+        cell.pad(5.0f);
+        
+        String text = entry.styleData.name;
+        if (showClass) {
+            text += " (" + entry.clazz.getSimpleName() + ")";
+        }
+        Label label = new Label(text, getSkin());
+        label.setEllipsis(true);
+        label.setAlignment(Align.center);
+        cell.add(label).width(CELL_WIDTH - 10.0f);
+        
+        cell.row();
+        Actor widget;
+        if (!entry.styleData.hasMandatoryFields()) {
+            widget = new Label("Missing mandatory fields", getSkin());
+        } else if (entry.styleData.hasAllNullFields()) {
+            widget = new Label("All fields are empty", getSkin());
+        } else {
+            try {
+                widget = main.getRootTable().createPreviewWidget(entry.clazz, entry.styleData, null);
+            } catch (Exception e) {
+                Gdx.app.error(getClass().getName(), "Error while creating gallery preview for " + entry.styleData.name, e);
+                widget = new Label("Error creating preview", getSkin());
+            }
+        }
+        
+        if (widget != null) {
+            cell.add(widget).expand().maxWidth(CELL_WIDTH - 10.0f);
+        }
+        return cell;
+    }
+    
+    private static class GalleryEntry {
+        private final Class clazz;
+        private final StyleData styleData;
+
+        public GalleryEntry(Class clazz, StyleData styleData) {
+            this.clazz = clazz;
+            this.styleData = styleData;
+        }
+    }
+    
+    /**
+     * Shows the entries in fixed size cells. Only the cells that are visible
+     * in the scroll pane have a preview.
+     */
+    private class GalleryGrid extends VirtualGrid<Container<Actor>> {
+        public GalleryGrid() {
+            super(0.0f);
+            setCellSize(CELL_WIDTH, CELL_HEIGHT);
+        }
+
+        @Override
+        public int getItemCount() {
+            return entries.size;
+        }
+
+        @Override
+        protected Container<Actor> newCell() {
+            Container<Actor> container = new Container<>();
+            container.fill();
+            return container;
+        }
+
+        @Override
+        protected void bindCell(Container<Actor> cell, int index) {
+            cell.setActor(createCell(entries.get(index), scopeSelectBox.getSelectedIndex() == 1));
+        }
+
+        @Override
+        protected boolean isReady() {
+            return !main.getAtlasData().isAtlasPending();
+        }
+    }
+}
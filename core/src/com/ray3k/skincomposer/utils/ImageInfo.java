@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * The dimensions of an image file, read from the file header without decoding
+ * the image. PNG, JPEG, GIF, and BMP headers are parsed directly, other
+ * formats fall back to an ImageIO reader. Results are cached per file version,
+ * identified by path, size, and last modified time.
+ */
+public class ImageInfo {
+    private static final ObjectMap<String, ImageInfo> cache = new ObjectMap<>();
+    private static final AsyncExecutor executor = new AsyncExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long PNG_SIGNATURE = 0x89504E470D0A1A0AL;
+    private static final int IHDR = 0x49484452;
+    private final int width;
+    private final int height;
+    private final boolean ninePatch;
+
+    private ImageInfo(int width, int height, boolean ninePatch) {
+        this.width = width;
+        this.height = height;
+        this.ninePatch = ninePatch;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * @return true if the file is named like a nine patch (*.9.png). The
+     * dimensions include the one pixel border.
+     */
+    public boolean isNinePatch() {
+        return ninePatch;
+    }
+    
+    /**
+     * The border of nine patches is not counted because it is removed when
+     * the image is packed.
+     * @param width
+     * @param height
+     * @return true if the image is smaller than the box.
+     */
+    public boolean fitsBox(float width, float height) {
+        int border = ninePatch ? 2 : 0;
+        return this.width - border < width && this.height - border < height;
+    }
+    
+    /**
+     * @param file
+     * @return The cached or newly read image info.
+     * @throws IOException if the file can't be read or isn't an image.
+     */
+    public static ImageInfo get(FileHandle file) throws IOException {
+        String key = file.path() + ":" + file.length() + ":" + file.lastModified();
+        ImageInfo info;
+        synchronized (cache) {
+            info = cache.get(key);
+        }
+        
+        if (info == null) {
+            info = read(file);
+            synchronized (cache) {
+                cache.put(key, info);
+            }
+        }
+        return info;
+    }
+    
+    /**
+     * Reads the headers of all files in parallel.
+     * @param files
+     * @return The image info of each file in the same order, null for files
+     * that could not be read.
+     */
+    public static Array<ImageInfo> getAll(Array<FileHandle> files) {
+        Array<AsyncResult<ImageInfo>> results = new Array<>(files.size);
+        for (FileHandle file : files) {
+            results.add(executor.submit(() -> get(file)));
+        }
+        
+        Array<ImageInfo> infos = new Array<>(files.size);
+        for (AsyncResult<ImageInfo> result : results) {
+            try {
+                infos.add(result.get());
+            } catch (GdxRuntimeException e) {
+                infos.add(null);
+            }
+        }
+        return infos;
+    }
+    
+    /**
+     * Removes all cached image info.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+    
+    private static ImageInfo read(FileHandle file) throws IOException {
+        boolean ninePatch = file.name().matches("(?i).*\\.9\\.png$");
+        
+        try (FileChannel channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(26);
+            readFully(channel, header, 0);
+            header.flip();
+            
+            //PNG: signature followed by the IHDR chunk
+            if (header.remaining() >= 24 && header.getLong(0) == PNG_SIGNATURE && header.getInt(12) == IHDR) {
+                return new ImageInfo(header.getInt(16), header.getInt(20), ninePatch);
+            }
+            
+            //JPEG: start of image marker
+            if (header.remaining() >= 2 && (header.get(0) & 0xff) == 0xFF && (header.get(1) & 0xff) == 0xD8) {
+                return readJpeg(channel, ninePatch);
+            }
+            
+            //GIF: GIF87a or GIF89a followed by the logical screen size
+            if (header.remaining() >= 10 && header.get(0) == 'G' && header.get(1) == 'I' && header.get(2) == 'F') {
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                return new ImageInfo(header.getShort(6) & 0xffff, header.getShort(8) & 0xffff, ninePatch);
+            }
+            
+            //BMP: BITMAPINFOHEADER, height is negative for top-down images
+            if (header.remaining() >= 26 && header.get(0) == 'B' && header.get(1) == 'M') {
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                return new ImageInfo(header.getInt(18), Math.abs(header.getInt(22)), ninePatch);
+            }
+        }
+        
+        return readWithImageIO(file, ninePatch);
+    }
+    
+    /**
+     * Walks the JPEG segments until a start of frame marker is found.
+     */
+    private static ImageInfo readJpeg(FileChannel channel, boolean ninePatch) throws IOException {
+        ByteBuffer segment = ByteBuffer.allocate(9);
+        long position = 2;
+        while (true) {
+            segment.clear();
+            segment.limit(4);
+            if (readFully(channel, segment, position) < 4) {
+                throw new IOException("Unexpected end of JPEG file");
+            }
+            
+            int marker = segment.get(1) & 0xff;
+            if ((segment.get(0) & 0xff) != 0xFF) {
+                throw new IOException("Invalid JPEG marker");
+            } else if (marker == 0xFF) {
+                //fill byte
+                position++;
+                continue;
+            }
+            
+            int length = segment.getShort(2) & 0xffff;
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                segment.clear();
+                if (readFully(channel, segment, position + 4) < 5) {
+                    throw new IOException("Unexpected end of JPEG file");
+                }
+                return new ImageInfo(segment.getShort(3) & 0xffff, segment.getShort(1) & 0xffff, ninePatch);
+            } else if (marker == 0xD9 || marker == 0xDA) {
+                throw new IOException("JPEG file has no frame header");
+            }
+            position += 2 + length;
+        }
+    }
+    
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+    
+    private static ImageInfo readWithImageIO(FileHandle file, boolean ninePatch) throws IOException {
+        Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix(file.extension());
+        if (!iter.hasNext()) {
+            throw new IOException("No reader available to check image dimensions: " + file.path());
+        }
+        
+        ImageReader reader = iter.next();
+        try (ImageInputStream stream = new FileImageInputStream(file.file())) {
+            reader.setInput(stream);
+            return new ImageInfo(reader.getWidth(reader.getMinIndex()), reader.getHeight(reader.getMinIndex()), ninePatch);
+        } finally {
+            reader.dispose();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import java.nio.ByteBuffer;
+
+/**
+ * Color statistics of an image file, used to pick readable background colors
+ * for drawables and fonts. Statistics are computed once per file version on a
+ * background thread and cached, so dialogs do not have to decode every image
+ * again when they are opened. Files are identified by path, size, and last
+ * modified time. Tinted statistics are derived from the untinted ones because
+ * tinting multiplies every pixel by the same color.
+ */
+public class ImageStats {
+    private static final ObjectMap<String, AsyncResult<ImageStats>> cache = new ObjectMap<>();
+    private static final AsyncExecutor executor = new AsyncExecutor(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private final Color averageColor;
+    private final Color averageEdgeColor;
+    
+    private ImageStats(Color averageColor, Color averageEdgeColor) {
+        this.averageColor = averageColor;
+        this.averageEdgeColor = averageEdgeColor;
+    }
+    
+    /**
+     * @return The average color of all visible pixels. Do not modify.
+     */
+    public Color getAverageColor() {
+        return averageColor;
+    }
+    
+    /**
+     * @return The average color of the outermost visible pixels. Do not
+     * modify.
+     */
+    public Color getAverageEdgeColor() {
+        return averageEdgeColor;
+    }
+    
+    /**
+     * @param tint
+     * @return A new color with the average edge color multiplied by tint.
+     */
+    public Color getAverageEdgeColor(Color tint) {
+        return tint(averageEdgeColor, tint);
+    }
+    
+    /**
+     * @param tint
+     * @return A new color with the average color multiplied by tint.
+     */
+    public Color getAverageColor(Color tint) {
+        return tint(averageColor, tint);
+    }
+    
+    private static Color tint(Color color, Color tint) {
+        Color returnValue = new Color(color);
+        if (tint != null) {
+            returnValue.mul(tint);
+            returnValue.a = 1.0f;
+        }
+        return returnValue;
+    }
+    
+    /**
+     * Starts computing the statistics of file in the background if they are
+     * not cached yet. Does not block.
+     * @param file
+     */
+    public static void prefetch(FileHandle file) {
+        request(file);
+    }
+    
+    /**
+     * Returns the statistics of file, waiting for a background computation if
+     * necessary.
+     * @param file
+     * @return 
+     */
+    public static ImageStats get(FileHandle file) {
+        return request(file).get();
+    }
+    
+    private static AsyncResult<ImageStats> request(FileHandle file) {
+        String key = file.path() + ":" + file.length() + ":" + file.lastModified();
+        synchronized (cache) {
+            AsyncResult<ImageStats> result = cache.get(key);
+            if (result == null) {
+                result = executor.submit(() -> compute(file));
+                cache.put(key, result);
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * Removes all cached statistics.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+    
+    private static ImageStats compute(FileHandle file) {
+        Pixmap pixmap = toRGBA8888(new Pixmap(file));
+        try {
+            boolean ninePatch = file.name().matches("(?i).*\\.9\\.png$");
+            return new ImageStats(averageColor(pixmap), averageEdgeColor(pixmap, ninePatch));
+        } finally {
+            pixmap.dispose();
+        }
+    }
+    
+    /**
+     * Converts pixmap to the RGBA8888 format expected by the scans below,
+     * disposing the original if a copy has to be made.
+     * @param pixmap
+     * @return 
+     */
+    static Pixmap toRGBA8888(Pixmap pixmap) {
+        if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            return pixmap;
+        } else {
+            Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Pixmap.Format.RGBA8888);
+            converted.setBlending(Pixmap.Blending.None);
+            converted.drawPixmap(pixmap, 0, 0);
+            pixmap.dispose();
+            return converted;
+        }
+    }
+    
+    /**
+     * Does not dispose pixmap.
+     * @param pixmap a pixmap in RGBA8888 format
+     * @return 
+     */
+    static Color averageColor(Pixmap pixmap) {
+        ByteBuffer pixels = pixmap.getPixels();
+        int length = pixmap.getWidth() * pixmap.getHeight() * 4;
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        int count = 0;
+        for (int i = 0; i < length; i += 4) {
+            if (pixels.get(i + 3) != 0) {
+                sumR += pixels.get(i) & 0xff;
+                sumG += pixels.get(i + 1) & 0xff;
+                sumB += pixels.get(i + 2) & 0xff;
+                count++;
+            }
+        }
+        
+        return average(sumR, sumG, sumB, count);
+    }
+    
+    /**
+     * Does not dispose pixmap. Averages the first visible pixel found from
+     * each side of every row and column.
+     * @param pixmap a pixmap in RGBA8888 format
+     * @param ninePatch ignores the outer border of nine patch files
+     * @return 
+     */
+    static Color averageEdgeColor(Pixmap pixmap, boolean ninePatch) {
+        int border = ninePatch ? 1 : 0;
+        int width = pixmap.getWidth();
+        int height = pixmap.getHeight();
+        ByteBuffer pixels = pixmap.getPixels();
+        long sumR = 0;
+        long sumG = 0;
+        long sumB = 0;
+        int count = 0;
+        
+        //left and right edges
+        for (int y = border; y < height - border; y++) {
+            int row = y * width;
+            for (int x = border; x < width - border; x++) {
+                int i = (row + x) * 4;
+                if (pixels.get(i + 3) != 0) {
+                    sumR += pixels.get(i) & 0xff;
+                    sumG += pixels.get(i + 1) & 0xff;
+                    sumB += pixels.get(i + 2) & 0xff;
+                    count++;
+                    break;
+                }
+            }
+            
+            for (int x = width - 1 - border; x > border; x--) {
+                int i = (row + x) * 4;
+                if (pixels.get(i + 3) != 0) {
+                    sumR += pixels.get(i) & 0xff;
+                    sumG += pixels.get(i + 1) & 0xff;
+                    sumB += pixels.get(i + 2) & 0xff;
+                    count++;
+                    break;
+                }
+            }
+        }
+        
+        //top and bottom edges
+        for (int x = border; x < width - border; x++) {
+            for (int y = border; y < height - border; y++) {
+                int i = (y * width + x) * 4;
+                if (pixels.get(i + 3) != 0) {
+                    sumR += pixels.get(i) & 0xff;
+                    sumG += pixels.get(i + 1) & 0xff;
+                    sumB += pixels.get(i + 2) & 0xff;
+                    count++;
+                    break;
+                }
+            }
+            
+            for (int y = height - 1 - border; y > border; y--) {
+                int i = (y * width + x) * 4;
+                if (pixels.get(i + 3) != 0) {
+                    sumR += pixels.get(i) & 0xff;
+                    sumG += pixels.get(i + 1) & 0xff;
+                    sumB += pixels.get(i + 2) & 0xff;
+                    count++;
+                    break;
+                }
+            }
+        }
+        
+        return average(sumR, sumG, sumB, count);
+    }
+    
+    private static Color average(long sumR, long sumG, long sumB, int count) {
+        if (count == 0) {
+            return new Color(Color.BLACK);
+        } else {
+            return new Color(sumR / 255.0f / count, sumG / 255.0f / count, sumB / 255.0f / count, 1.0f);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2017 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.Sort;
+import java.util.Comparator;
+
+/**
+ * Search and sort keys for the resources listed in the drawables, fonts, and
+ * colors dialogs. Lower-cased names are indexed by their trigrams and by their
+ * one and two character prefixes, so filtering a large list only looks at the
+ * resources in the posting lists of the query. File modification times are
+ * read once per resource instead of inside sort comparators. The index is
+ * brought in line with the listed resources whenever they are sorted; names
+ * must be refreshed with {@link #rename(java.lang.Object)}.
+ * @param <T> the resource type
+ */
+public class ResourceIndex<T> {
+    private final KeyProvider<T> keyProvider;
+    private final IdentityMap<T, Entry<T>> entries;
+    private final ObjectMap<String, ObjectSet<Entry<T>>> trigrams;
+    private final ObjectMap<String, ObjectSet<Entry<T>>> prefixes;
+    private int generation;
+    private final Comparator<T> nameComparator;
+    private final Comparator<T> dateComparator;
+    private final Comparator<Entry<T>> orderComparator;
+
+    /**
+     * @param keyProvider supplies the name and file of each resource
+     */
+    public ResourceIndex(KeyProvider<T> keyProvider) {
+        this.keyProvider = keyProvider;
+        entries = new IdentityMap<>();
+        trigrams = new ObjectMap<>();
+        prefixes = new ObjectMap<>();
+        nameComparator = (T o1, T o2) -> getEntry(o1).key.compareTo(getEntry(o2).key);
+        dateComparator = (T o1, T o2) -> Long.compare(getEntry(o1).lastModified, getEntry(o2).lastModified);
+        orderComparator = (Entry<T> o1, Entry<T> o2) -> Integer.compare(o1.order, o2.order);
+    }
+    
+    /**
+     * Case insensitive comparison of the resource names.
+     * @return 
+     */
+    public Comparator<T> getNameComparator() {
+        return nameComparator;
+    }
+    
+    /**
+     * Compares the modification times of the resource files, oldest first.
+     * @return 
+     */
+    public Comparator<T> getDateComparator() {
+        return dateComparator;
+    }
+    
+    /**
+     * Sorts items and makes them the indexed resources. Resources that are
+     * not in items anymore are removed from the index.
+     * @param items
+     * @param comparator
+     */
+    public void sort(Array<T> items, Comparator<T> comparator) {
+        sync(items);
+        Sort.instance().sort(items, comparator);
+        for (int i = 0; i < items.size; i++) {
+            entries.get(items.get(i)).order = i;
+        }
+    }
+    
+    /**
+     * Returns the resources whose name contains query, ignoring case. Queries
+     * shorter than three characters only match the beginning of names.
+     * @param items the indexed resources in the order they are listed
+     * @param query
+     * @return A new array with the matches in the order of items.
+     */
+    public Array<T> filter(Array<T> items, String query) {
+        if (items.size != entries.size) {
+            sync(items);
+        }
+        
+        query = query == null ? "" : query.trim().toLowerCase();
+        if (query.length() == 0) {
+            return new Array<>(items);
+        }
+        
+        Array<Entry<T>> matches = new Array<>();
+        if (query.length() < 3) {
+            ObjectSet<Entry<T>> candidates = prefixes.get(query);
+            if (candidates != null) {
+                for (Entry<T> entry : candidates) {
+                    matches.add(entry);
+                }
+            }
+        } else {
+            //verify the candidates of the shortest posting list
+            ObjectSet<Entry<T>> candidates = null;
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                ObjectSet<Entry<T>> posting = trigrams.get(query.substring(i, i + 3));
+                if (posting == null) {
+                    return new Array<>();
+                }
+                if (candidates == null || posting.size < candidates.size) {
+                    candidates = posting;
+                }
+            }
+            
+            for (Entry<T> entry : candidates) {
+                if (entry.key.contains(query)) {
+                    matches.add(entry);
+                }
+            }
+        }
+        
+        matches.sort(orderComparator);
+        Array<T> returnValue = new Array<>(matches.size);
+        for (Entry<T> entry : matches) {
+            returnValue.add(entry.item);
+        }
+        return returnValue;
+    }
+    
+    /**
+     * Adds a resource to the index. Does nothing if it is already indexed.
+     * @param item
+     */
+    public void add(T item) {
+        getEntry(item);
+    }
+    
+    /**
+     * Removes a deleted resource from the index.
+     * @param item
+     */
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+    
+    /**
+     * Refreshes the name of a renamed resource.
+     * @param item
+     */
+    public void rename(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            getEntry(item);
+        } else {
+            unindex(entry);
+            entry.key = createKey(item);
+            index(entry);
+        }
+    }
+    
+    /**
+     * Forgets all resources. File modification times will be read again.
+     */
+    public void clear() {
+        entries.clear();
+        trigrams.clear();
+        prefixes.clear();
+    }
+    
+    /**
+     * Adds the resources in items that are not indexed yet, removes the ones
+     * that are not in items and records the position of every resource.
+     */
+    private void sync(Array<T> items) {
+        generation++;
+        for (int i = 0; i < items.size; i++) {
+            Entry<T> entry = getEntry(items.get(i));
+            entry.generation = generation;
+            entry.order = i;
+        }
+        
+        if (entries.size > items.size) {
+            Array<T> stale = new Array<>();
+            for (Entry<T> entry : entries.values()) {
+                if (entry.generation != generation) {
+                    stale.add(entry.item);
+                }
+            }
+            for (T item : stale) {
+                remove(item);
+            }
+        }
+    }
+    
+    private Entry<T> getEntry(T item) {
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>();
+            entry.item = item;
+            entry.key = createKey(item);
+            entry.generation = generation;
+            FileHandle file = keyProvider.getFile(item);
+            entry.lastModified = file == null ? 0 : file.lastModified();
+            entries.put(item, entry);
+            index(entry);
+        }
+        return entry;
+    }
+    
+    private String createKey(T item) {
+        String name = keyProvider.getName(item);
+        return name == null ? "" : name.toLowerCase();
+    }
+    
+    private void index(Entry<T> entry) {
+        String key = entry.key;
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            post(trigrams, key.substring(i, i + 3), entry);
+        }
+        for (int i = 1; i <= 2 && i <= key.length(); i++) {
+            post(prefixes, key.substring(0, i), entry);
+        }
+    }
+    
+    private void unindex(Entry<T> entry) {
+        String key = entry.key;
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            unpost(trigrams, key.substring(i, i + 3), entry);
+        }
+        for (int i = 1; i <= 2 && i <= key.length(); i++) {
+            unpost(prefixes, key.substring(0, i), entry);
+        }
+    }
+    
+    private static <T> void post(ObjectMap<String, ObjectSet<Entry<T>>> postings, String key, Entry<T> entry) {
+        ObjectSet<Entry<T>> posting = postings.get(key);
+        if (posting == null) {
+            posting = new ObjectSet<>();
+            postings.put(key, posting);
+        }
+        posting.add(entry);
+    }
+    
+    private static <T> void unpost(ObjectMap<String, ObjectSet<Entry<T>>> postings, String key, Entry<T> entry) {
+        ObjectSet<Entry<T>> posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(entry);
+            if (posting.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+    
+    private static class Entry<T> {
+        T item;
+        String key;
+        long lastModified;
+        int order;
+        int generation;
+    }
+    
+    public static interface KeyProvider<T> {
+        public String getName(T item);
+        
+        /**
+         * @param item
+         * @return The file of the resource or null if it doesn't have one.
+         */
+        public FileHandle getFile(T item);
+    }
+}
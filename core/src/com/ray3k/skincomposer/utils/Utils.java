@@ -33,21 +33,18 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
-import javax.imageio.stream.FileImageInputStream;
-import javax.imageio.stream.ImageInputStream;
 
 public class Utils {
     public static String os;
+    /**
+     * Cached, see {@link ImageStats}.
+     * @param file
+     * @return 
+     */
     public static Color averageColor(FileHandle file) {
-        Pixmap pixmap = new Pixmap(file);
-        Color returnValue = averageColor(pixmap);
-        pixmap.dispose();
-        return returnValue;
+        return new Color(ImageStats.get(file).getAverageColor());
     }
     
     /**
@@ -56,64 +53,33 @@ public class Utils {
      * @return 
      */
     public static Color averageColor(Pixmap pixmap) {
-        Color temp = new Color();
-        float sumR = 0.0f;
-        float sumG = 0.0f;
-        float sumB = 0.0f;
-        int count = 0;
-        for (int y = 0; y < pixmap.getHeight(); y++) {
-            for (int x = 0; x < pixmap.getWidth(); x++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                }
-            }
-        }
-        
-        if (count == 0) {
-            return new Color(Color.BLACK);
+        if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            return ImageStats.averageColor(pixmap);
         } else {
-            return new Color(sumR / count, sumG / count, sumB / count, 1.0f);
+            Pixmap converted = copyRGBA8888(pixmap);
+            Color returnValue = ImageStats.averageColor(converted);
+            converted.dispose();
+            return returnValue;
         }
     }
     
+    /**
+     * Cached, see {@link ImageStats}.
+     * @param file
+     * @return 
+     */
     public static Color averageEdgeColor(FileHandle file) {
-        Pixmap pixmap = new Pixmap(file);
-        Color returnValue = averageEdgeColor(pixmap, file.name().matches("(?i).*\\.9\\.png$"));
-        pixmap.dispose();
-        return returnValue;
-    }
-    
-    public static Color averageEdgeColor(FileHandle file, Color color) {
-        Pixmap pixmap = new Pixmap(file);
-        pixmap = tintPixmap(pixmap, color);
-        Color returnValue = averageEdgeColor(pixmap, file.name().matches("(?i).*\\.9\\.png$"));
-        pixmap.dispose();
-        return returnValue;
+        return new Color(ImageStats.get(file).getAverageEdgeColor());
     }
     
     /**
-     * Does not dispose pixmap
-     * @param pixmap
+     * Cached, see {@link ImageStats}.
+     * @param file
+     * @param color the tint applied to the image
      * @return 
      */
-    public static Pixmap tintPixmap(Pixmap pixmap, Color color) {
-        Color tempColor = new Color();
-        for (int y = 0; y < pixmap.getHeight(); y++) {
-            for (int x = 0; x < pixmap.getWidth(); x++) {
-                tempColor.set(pixmap.getPixel(x, y));
-                float a = tempColor.a;
-                tempColor.mul(color);
-                tempColor.a = a;
-                pixmap.setColor(tempColor);
-                pixmap.drawPixel(x, y);
-                tempColor.set(pixmap.getPixel(x, y));
-            }
-        }
-        return pixmap;
+    public static Color averageEdgeColor(FileHandle file, Color color) {
+        return ImageStats.get(file).getAverageEdgeColor(color);
     }
     
     /**
@@ -123,80 +89,23 @@ public class Utils {
      * @return 
      */
     public static Color averageEdgeColor(Pixmap pixmap, boolean ninePatch) {
-        int border = 0;
-        if (ninePatch) {
-            border = 1;
-        }
-        
-        Color temp = new Color();
-        float sumR = 0.0f;
-        float sumG = 0.0f;
-        float sumB = 0.0f;
-        int count = 0;
-
-        //left edge
-        for (int y = border; y < pixmap.getHeight() - border; y++) {
-            for (int x = border; x < pixmap.getWidth() - border; x++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //right edge
-        for (int y = border; y < pixmap.getHeight() - border; y++) {
-            for (int x = pixmap.getWidth() - 1 - border; x > border; x--) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //top edge
-        for (int x = border; x < pixmap.getWidth() - border; x++) {
-            for (int y = border; y < pixmap.getHeight() - border; y++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //bottom edge
-        for (int x = border; x < pixmap.getWidth() - border; x++) {
-            for (int y = pixmap.getHeight() - 1 - border; y > border; y--) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        if (count == 0) {
-            return new Color(Color.BLACK);
+        if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            return ImageStats.averageEdgeColor(pixmap, ninePatch);
         } else {
-            return new Color(sumR / count, sumG / count, sumB / count, 1.0f);
+            Pixmap converted = copyRGBA8888(pixmap);
+            Color returnValue = ImageStats.averageEdgeColor(converted, ninePatch);
+            converted.dispose();
+            return returnValue;
         }
     }
     
+    private static Pixmap copyRGBA8888(Pixmap pixmap) {
+        Pixmap copy = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Pixmap.Format.RGBA8888);
+        copy.setBlending(Pixmap.Blending.None);
+        copy.drawPixmap(pixmap, 0, 0);
+        return copy;
+    }
+    
     public static Color inverseColor(Color color) {
         return new Color(1 - color.r, 1 - color.g, 1 - color.b, color.a);
     }
@@ -246,25 +155,19 @@ public class Utils {
         return returnValue;
     }
     
+    /**
+     * Only reads the image header, see {@link ImageInfo}.
+     * @param fileHandle
+     * @param width
+     * @param height
+     * @return 
+     */
     public static boolean doesImageFitBox(FileHandle fileHandle, float width, float height) {
         boolean result = false;
-        String suffix = fileHandle.extension();
-        Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix(suffix);
-        if (iter.hasNext()) {
-            ImageReader reader = iter.next();
-            try {
-                ImageInputStream stream = new FileImageInputStream(fileHandle.file());
-                reader.setInput(stream);
-                int imageWidth = reader.getWidth(reader.getMinIndex());
-                int imageHeight = reader.getHeight(reader.getMinIndex());
-                result = imageWidth < width && imageHeight < height;
-            } catch (IOException e) {
-                Gdx.app.error(Utils.class.getName(), "error checking image dimensions", e);
-            } finally {
-                reader.dispose();
-            }
-        } else {
-            Gdx.app.error(Utils.class.getName(), "No reader available to check image dimensions");
+        try {
+            result = ImageInfo.get(fileHandle).fitsBox(width, height);
+        } catch (IOException e) {
+            Gdx.app.error(Utils.class.getName(), "error checking image dimensions", e);
         }
         return result;
     }
@@ -45,11 +45,28 @@ public class DesktopLauncher implements DesktopWorker, Lwjgl3WindowListener {
         Main main = new Main();
         main.setDesktopWorker(desktopLauncher);
         
+        //--render-previews <project file> <output folder>
+        if (arg.length >= 3 && arg[0].equals("--render-previews")) {
+            config.setInitialVisible(false);
+            main.setSnapshotJob(new FileHandle(arg[1]), new FileHandle(arg[2]));
+        }
+        
         try {
             new Lwjgl3Application(main, config);
+            
+            if (main.isSnapshotFailed()) {
+                if (Gdx.app != null && Gdx.app.getApplicationLogger() instanceof TextFileApplicationLogger) {
+                    ((TextFileApplicationLogger) Gdx.app.getApplicationLogger()).flush();
+                }
+                System.exit(1);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             
+            if (Gdx.app != null && Gdx.app.getApplicationLogger() instanceof TextFileApplicationLogger) {
+                ((TextFileApplicationLogger) Gdx.app.getApplicationLogger()).flush();
+            }
+            
             FileWriter fw = null;
             try {
                 fw = new FileWriter(Gdx.files.local("temp/java-stacktrace.txt").file(), true);
@@ -134,7 +151,7 @@ public class DesktopLauncher implements DesktopWorker, Lwjgl3WindowListener {
 
     @Override
     public void focusGained() {
-        
+        Gdx.graphics.requestRendering();
     }
 
     @Override
@@ -167,6 +184,8 @@ public class DesktopLauncher implements DesktopWorker, Lwjgl3WindowListener {
         for (FilesDroppedListener listener : filesDroppedListeners) {
             listener.filesDropped(fileHandles);
         }
+        
+        Gdx.graphics.requestRendering();
     }
 
     @Override
@@ -185,6 +204,7 @@ public class DesktopLauncher implements DesktopWorker, Lwjgl3WindowListener {
 
     @Override
     public void refreshRequested() {
+        Gdx.graphics.requestRendering();
     }
 
     @Override